@@ -0,0 +1,50 @@
+-- v2.0.9 migration --
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS gd_event_journal(
+	event_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+	event_type VARCHAR(32) NOT NULL,
+	entity_id BIGINT NOT NULL,
+	dispatch_date DATETIME NOT NULL,
+	global_delivered TINYINT(1) NOT NULL DEFAULT 0,
+	channel_delivered TINYINT(1) NOT NULL DEFAULT 0,
+	dm_delivered TINYINT(1) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS gd_event_delivery(
+	event_id BIGINT NOT NULL,
+	channel_id BIGINT NOT NULL,
+	PRIMARY KEY (event_id, channel_id)
+);
+
+CREATE TABLE IF NOT EXISTS gd_broadcast_result(
+	level_id BIGINT NOT NULL,
+	channel_id BIGINT NOT NULL,
+	message_id BIGINT NOT NULL,
+	broadcast_date DATETIME NOT NULL,
+	PRIMARY KEY (level_id, channel_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS gd_backfill_checkpoint(
+	backfill_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+	stop_level_id BIGINT NOT NULL,
+	last_level_id BIGINT,
+	dispatched_count INT NOT NULL DEFAULT 0,
+	start_date DATETIME NOT NULL,
+	update_date DATETIME NOT NULL,
+	completed TINYINT(1) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS gd_rate_subscription(
+	subscription_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+	user_id BIGINT NOT NULL,
+	creator_id BIGINT,
+	creator_name VARCHAR(32),
+	difficulty VARCHAR(16),
+	demon_difficulty VARCHAR(16),
+	rating VARCHAR(16),
+	create_date DATETIME NOT NULL,
+	INDEX (user_id)
+);
+
+COMMIT;
@@ -12,7 +12,6 @@ import com.github.alex1304.jdash.exception.CorruptedResponseContentException;
 import com.github.alex1304.jdash.exception.MissingAccessException;
 import com.github.alex1304.jdash.exception.NoTimelyAvailableException;
 import com.github.alex1304.jdash.graphics.SpriteFactory;
-import com.github.alex1304.jdash.util.LevelSearchFilters;
 import com.github.alex1304.jdash.util.Routes;
 import com.github.alex1304.ultimategdbot.api.BotConfig;
 import com.github.alex1304.ultimategdbot.api.command.*;
@@ -20,6 +19,7 @@ import com.github.alex1304.ultimategdbot.api.command.annotated.paramconverter.Pa
 import com.github.alex1304.ultimategdbot.api.service.BotService;
 import com.github.alex1304.ultimategdbot.api.service.RootServiceSetupHelper;
 import com.github.alex1304.ultimategdbot.api.util.DurationUtils;
+import com.github.alex1304.ultimategdbot.gdplugin.cache.GDClientCache;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDLevelRequestConfigData;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDLinkedUserDao;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDModDao;
@@ -47,6 +47,7 @@ public final class GDService {
 	// Injected
 	private final BotService bot;
 	private final AuthenticatedGDClient gdClient;
+	private final GDClientCache gdCache;
 	private final SpriteFactory spriteFactory;
 	private final GDEventService gdEventService;
 	private final GDLevelRequestService gdLevelRequestService;
@@ -60,6 +61,7 @@ public final class GDService {
 			BotConfig botConfig,
 			BotService bot,
 			AuthenticatedGDClient gdClient,
+			GDClientCache gdCache,
 			SpriteFactory spriteFactory,
 			GDEventService gdEventService,
 			GDLevelRequestService gdLevelRequestService,
@@ -70,17 +72,18 @@ public final class GDService {
 					var leaderboardRefreshParallelism = gdConfig.readOptional("gdplugin.max_connections")
 							.map(Integer::parseInt)
 							.orElse(100);
-					var gdService = new GDService(bot, gdClient, spriteFactory, gdEventService, gdLevelRequestService, 
+					var gdService = new GDService(bot, gdClient, gdCache, spriteFactory, gdEventService, gdLevelRequestService, 
 							gdLevelService, gdUserService, leaderboardRefreshParallelism);
 					return gdService;
 				})
-				.addCommandProvider(bot.command(), initCommandProvider(bot, gdClient, gdLevelRequestService, gdUserService))
+				.addCommandProvider(bot.command(), initCommandProvider(bot, gdCache, gdLevelRequestService, gdUserService))
 				.setup();
 	}
 	
 	private GDService(
 			BotService bot,
 			AuthenticatedGDClient gdClient,
+			GDClientCache gdCache,
 			SpriteFactory spriteFactory,
 			GDEventService gdEventService,
 			GDLevelRequestService gdLevelRequestService,
@@ -89,6 +92,7 @@ public final class GDService {
 			int leaderboardRefreshParallelism) {
 		this.bot = bot;
 		this.gdClient = gdClient;
+		this.gdCache = gdCache;
 		this.spriteFactory = spriteFactory;
 		this.gdEventService = gdEventService;
 		this.gdLevelRequestService = gdLevelRequestService;
@@ -99,7 +103,7 @@ public final class GDService {
 	
 	private static CommandProvider initCommandProvider(
 			BotService bot,
-			AuthenticatedGDClient gdClient,
+			GDClientCache gdCache,
 			GDLevelRequestService gdLevelRequestService,
 			GDUserService gdUserService) {
 		var cmdProvider = new CommandProvider(GDPlugin.PLUGIN_NAME, bot.command().getPermissionChecker());
@@ -117,7 +121,7 @@ public final class GDService {
 		cmdProvider.addParamConverter(new ParamConverter<GDLevel>() {
 			@Override
 			public Mono<GDLevel> convert(Context ctx, String input) {
-				return gdClient.searchLevels(input, LevelSearchFilters.create(), 0)
+				return gdCache.searchLevels(input, 0)
 						.flatMapMany(Flux::fromIterable)
 						.next();
 			}
@@ -199,9 +203,6 @@ public final class GDService {
 		var username = gdConfig.read("gdplugin.username");
 		var password = gdConfig.read("gdplugin.password");
 		var host = gdConfig.readOptional("gdplugin.host").orElse(Routes.BASE_URL);
-		var cacheTtl = gdConfig.readOptional("gdplugin.cache_ttl")
-				.map(v -> Duration.ofMillis(Long.parseLong(v)))
-				.orElse(GDClientBuilder.DEFAULT_CACHE_TTL);
 		var requestTimeout = gdConfig.readOptional("gdplugin.request_timeout")
 				.map(v -> Duration.ofMillis(Long.parseLong(v)))
 				.orElse(GDClientBuilder.DEFAULT_REQUEST_TIMEOUT);
@@ -210,7 +211,8 @@ public final class GDService {
                 .orElse(Cooldown.none());
 		return GDClientBuilder.create()
 				.withHost(host)
-				.withCacheTtl(cacheTtl)
+				// Caching is done by GDClientCache, with a TTL per operation
+				.withCacheTtl(Duration.ZERO)
 				.withRequestTimeout(requestTimeout)
                 .withCooldown(cooldown)
 				.buildAuthenticated(new Credentials(username, password))
@@ -231,6 +233,10 @@ public final class GDService {
 		return gdClient;
 	}
 
+	public GDClientCache cache() {
+		return gdCache;
+	}
+
 	public SpriteFactory spriteFactory() {
 		return spriteFactory;
 	}
@@ -12,6 +12,7 @@ import com.github.alex1304.rdi.ServiceReference;
 import com.github.alex1304.rdi.config.ServiceDescriptor;
 import com.github.alex1304.ultimategdbot.api.BotConfig;
 import com.github.alex1304.ultimategdbot.api.service.ServiceDeclarator;
+import com.github.alex1304.ultimategdbot.gdplugin.cache.GDClientCache;
 import com.github.alex1304.ultimategdbot.gdplugin.gdevent.GDEventService;
 import com.github.alex1304.ultimategdbot.gdplugin.level.GDLevelService;
 import com.github.alex1304.ultimategdbot.gdplugin.levelrequest.GDLevelRequestService;
@@ -23,6 +24,7 @@ public final class GDServices implements ServiceDeclarator {
 	
 	public static final ServiceReference<GDService> GD = ServiceReference.ofType(GDService.class);
 	public static final ServiceReference<AuthenticatedGDClient> CLIENT = ServiceReference.of("gdplugin.client", AuthenticatedGDClient.class);
+	public static final ServiceReference<GDClientCache> CACHE = ServiceReference.ofType(GDClientCache.class);
 	public static final ServiceReference<SpriteFactory> SPRITE_FACTORY = ServiceReference.of("gdplugin.spriteFactory", SpriteFactory.class);
 	public static final ServiceReference<GDEventService> EVENT = ServiceReference.ofType(GDEventService.class);
 	public static final ServiceReference<GDLevelRequestService> LEVEL_REQUEST = ServiceReference.ofType(GDLevelRequestService.class);
@@ -37,6 +39,7 @@ public final class GDServices implements ServiceDeclarator {
 								value(botConfig, BotConfig.class),
 								ref(BOT),
 								ref(CLIENT),
+								ref(CACHE),
 								ref(SPRITE_FACTORY),
 								ref(EVENT),
 								ref(LEVEL_REQUEST),
@@ -47,6 +50,11 @@ public final class GDServices implements ServiceDeclarator {
 						.setFactoryMethod(externalStaticFactory(GDService.class, "createGDClient", Mono.class,
 								value(botConfig, BotConfig.class)))
 						.build(),
+				ServiceDescriptor.builder(CACHE)
+						.setFactoryMethod(constructor(
+								value(botConfig, BotConfig.class),
+								ref(CLIENT)))
+						.build(),
 				ServiceDescriptor.builder(SPRITE_FACTORY)
 						.setFactoryMethod(externalStaticFactory(GDService.class, "createSpriteFactory", Mono.class))
 						.build(),
@@ -55,6 +63,7 @@ public final class GDServices implements ServiceDeclarator {
 								value(botConfig, BotConfig.class),
 								ref(BOT),
 								ref(CLIENT),
+								ref(CACHE),
 								ref(LEVEL),
 								ref(USER)))
 						.build(),
@@ -65,13 +74,14 @@ public final class GDServices implements ServiceDeclarator {
 						.build(),
 				ServiceDescriptor.builder(LEVEL)
 						.setFactoryMethod(constructor(
-								ref(BOT)))
+								ref(BOT),
+								ref(CACHE)))
 						.build(),
 				ServiceDescriptor.builder(USER)
 						.setFactoryMethod(constructor(
 								value(botConfig, BotConfig.class),
 								ref(BOT),
-								ref(CLIENT),
+								ref(CACHE),
 								ref(SPRITE_FACTORY)))
 						.build()
 		);
@@ -0,0 +1,377 @@
+package com.github.alex1304.ultimategdbot.gdplugin.cache;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.github.alex1304.jdash.client.AuthenticatedGDClient;
+import com.github.alex1304.jdash.entity.GDLevel;
+import com.github.alex1304.jdash.entity.GDLevelData;
+import com.github.alex1304.jdash.entity.GDSong;
+import com.github.alex1304.jdash.entity.GDTimelyLevel;
+import com.github.alex1304.jdash.entity.GDUser;
+import com.github.alex1304.jdash.exception.MissingAccessException;
+import com.github.alex1304.jdash.util.GDPaginator;
+import com.github.alex1304.jdash.util.LevelSearchFilters;
+import com.github.alex1304.ultimategdbot.api.BotConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Caches the results of requests made to Geometry Dash servers. Each operation
+ * has its own cache with its own time-to-live and size bound, so that data that
+ * rarely changes, such as levels, stays cached much longer than data that
+ * changes often, such as user stats. Concurrent identical requests that miss
+ * the cache share a single request to the servers, so that many users asking
+ * for the same thing at once (for example the new Daily level) don't each
+ * spend a request of the rate limit. Requests that found nothing are
+ * remembered for a short time as well, so that retrying a typo doesn't reach
+ * the servers again. The cache of the underlying client is expected to be
+ * disabled.
+ */
+public final class GDClientCache {
+
+	/**
+	 * The operations whose results are cached.
+	 */
+	public enum Operation {
+		LEVEL_BY_ID(Duration.ofHours(1), 5000),
+		LEVEL_DATA(Duration.ofHours(1), 1000),
+		LEVEL_SONG(Duration.ofHours(1), 5000),
+		TIMELY_LEVEL(Duration.ofHours(1), 4),
+		DAILY_LEVEL(Duration.ofSeconds(30), 1),
+		WEEKLY_DEMON(Duration.ofSeconds(30), 1),
+		SEARCH_LEVELS(Duration.ofMinutes(10), 500),
+		LEVELS_BY_USER(Duration.ofMinutes(10), 500),
+		SEARCH_USER(Duration.ofMinutes(10), 2000),
+		USER_BY_ACCOUNT_ID(Duration.ofMinutes(5), 2000),
+		// A player never changes account
+		ACCOUNT_ID_BY_PLAYER_ID(Duration.ofDays(30), 10000);
+
+		private final Duration defaultTtl;
+		private final long defaultMaxSize;
+
+		private Operation(Duration defaultTtl, long defaultMaxSize) {
+			this.defaultTtl = defaultTtl;
+			this.defaultMaxSize = defaultMaxSize;
+		}
+
+		public String configName() {
+			return name().toLowerCase();
+		}
+	}
+
+	private static final Logger LOGGER = Loggers.getLogger(GDClientCache.class);
+
+	private final AuthenticatedGDClient client;
+	private final Map<Operation, Cache<Object, Object>> caches = new EnumMap<>(Operation.class);
+	private final Cache<List<Object>, MissingAccessException> misses;
+	private final Map<List<Object>, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong missHitCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	public GDClientCache(BotConfig botConfig, AuthenticatedGDClient client) {
+		this.client = client;
+		var gdConfig = botConfig.resource("gd");
+		if (gdConfig.readOptional("gdplugin.cache_ttl").isPresent()) {
+			LOGGER.warn("gdplugin.cache_ttl is deprecated and ignored, "
+					+ "set the TTL of each kind of request with gdplugin.cache_<operation>_ttl instead");
+		}
+		this.misses = Caffeine.newBuilder()
+				.expireAfterWrite(gdConfig.readOptional("gdplugin.cache_not_found_ttl")
+						.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+						.orElse(Duration.ofMinutes(1)))
+				.maximumSize(gdConfig.readOptional("gdplugin.cache_not_found_max_size")
+						.map(Long::parseLong)
+						.orElse(5000L))
+				.build();
+		for (var operation : Operation.values()) {
+			var ttl = gdConfig.readOptional("gdplugin.cache_" + operation.configName() + "_ttl")
+					.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+					.orElse(operation.defaultTtl);
+			var maxSize = gdConfig.readOptional("gdplugin.cache_" + operation.configName() + "_max_size")
+					.map(Long::parseLong)
+					.orElse(operation.defaultMaxSize);
+			caches.put(operation, Caffeine.newBuilder()
+					.expireAfterWrite(ttl)
+					.maximumSize(maxSize)
+					.recordStats()
+					.build());
+		}
+	}
+
+	/**
+	 * Gets the underlying client, for requests that must not be cached.
+	 *
+	 * @return the client
+	 */
+	public AuthenticatedGDClient client() {
+		return client;
+	}
+
+	public Mono<GDLevel> getLevelById(long levelId) {
+		return cached(Operation.LEVEL_BY_ID, levelId, () -> client.getLevelById(levelId));
+	}
+
+	/**
+	 * Downloads the data of the given level, such as its password and upload
+	 * date.
+	 *
+	 * @param level the level
+	 * @return a Mono emitting the level data
+	 */
+	public Mono<GDLevelData> downloadLevel(GDLevel level) {
+		return cached(Operation.LEVEL_DATA, level.getId(), level::download);
+	}
+
+	/**
+	 * Gets the song used by the given level.
+	 *
+	 * @param level the level
+	 * @return a Mono emitting the song
+	 */
+	public Mono<GDSong> getSong(GDLevel level) {
+		return cached(Operation.LEVEL_SONG, level.getId(), level::getSong);
+	}
+
+	/**
+	 * Downloads the level of the given Daily level or Weekly demon.
+	 *
+	 * @param timely the timely level
+	 * @return a Mono emitting the level
+	 */
+	public Mono<GDLevel> getTimelyLevel(GDTimelyLevel timely) {
+		return cached(Operation.TIMELY_LEVEL, List.of(timely.getType(), timely.getId()), timely::getLevel);
+	}
+
+	public Mono<GDTimelyLevel> getDailyLevel() {
+		return cached(Operation.DAILY_LEVEL, Operation.DAILY_LEVEL, client::getDailyLevel);
+	}
+
+	public Mono<GDTimelyLevel> getWeeklyDemon() {
+		return cached(Operation.WEEKLY_DEMON, Operation.WEEKLY_DEMON, client::getWeeklyDemon);
+	}
+
+	/**
+	 * Searches levels with the default search filters.
+	 *
+	 * @param query the search query
+	 * @param page  the page number
+	 * @return a Mono emitting the search results
+	 */
+	public Mono<GDPaginator<GDLevel>> searchLevels(String query, int page) {
+		return cached(Operation.SEARCH_LEVELS, List.of(query.toLowerCase(), page),
+				() -> client.searchLevels(query, LevelSearchFilters.create(), page));
+	}
+
+	public Mono<GDPaginator<GDLevel>> getLevelsByUser(GDUser user, int page) {
+		return cached(Operation.LEVELS_BY_USER, List.of(user.getId(), page), () -> client.getLevelsByUser(user, page));
+	}
+
+	public Mono<GDUser> searchUser(String name) {
+		return cached(Operation.SEARCH_USER, name.toLowerCase(), () -> client.searchUser(name));
+	}
+
+	public Mono<GDUser> getUserByAccountId(long accountId) {
+		return cached(Operation.USER_BY_ACCOUNT_ID, accountId, () -> client.getUserByAccountId(accountId));
+	}
+
+	/**
+	 * Resolves the account ID of a player from their player ID, as found in the
+	 * creator ID of levels.
+	 *
+	 * @param playerId the player ID
+	 * @return a Mono emitting the account ID
+	 */
+	public Mono<Long> getAccountIdByPlayerId(long playerId) {
+		return cached(Operation.ACCOUNT_ID_BY_PLAYER_ID, playerId,
+				() -> searchUser("" + playerId).map(GDUser::getAccountId));
+	}
+
+	/**
+	 * Gets the hit and miss statistics of the cache of each operation.
+	 *
+	 * @return the statistics by operation
+	 */
+	public Map<Operation, CacheStats> stats() {
+		var stats = new EnumMap<Operation, CacheStats>(Operation.class);
+		caches.forEach((operation, cache) -> stats.put(operation, cache.stats()));
+		return stats;
+	}
+
+	/**
+	 * @return the number of requests that didn't reach the servers because an
+	 *         identical request was already in flight
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	/**
+	 * @return the number of requests answered from the remembered "not found"
+	 *         results
+	 */
+	public long getNotFoundHitCount() {
+		return missHitCount.get();
+	}
+
+	/**
+	 * @param operation the operation
+	 * @return the number of entries currently cached for the given operation
+	 */
+	public long size(Operation operation) {
+		return caches.get(operation).estimatedSize();
+	}
+
+	/**
+	 * Removes all entries from the cache, including the cache of the underlying
+	 * client.
+	 *
+	 * @return the number of entries removed
+	 */
+	public long clear() {
+		var count = 0L;
+		for (var operation : Operation.values()) {
+			count += invalidate(operation);
+		}
+		client.clearCache();
+		return count;
+	}
+
+	/**
+	 * Removes all entries cached for the given operation.
+	 *
+	 * @param operation the operation
+	 * @return the number of entries removed
+	 */
+	public long invalidate(Operation operation) {
+		return evict(operation, (key, value) -> true) + evictMisses(operation, key -> true);
+	}
+
+	/**
+	 * Removes the entries holding data of the given user: their profile, the
+	 * searches that resolved to them and the list of their levels.
+	 *
+	 * @param user the user
+	 * @return the number of entries removed
+	 */
+	public long invalidateUser(GDUser user) {
+		var accountId = user.getAccountId();
+		var playerId = user.getId();
+		var name = user.getName().toLowerCase();
+		return evict(Operation.USER_BY_ACCOUNT_ID, (key, value) -> key.equals(accountId))
+				+ evict(Operation.SEARCH_USER, (key, value) -> key.equals(name) || ((GDUser) value).getAccountId() == accountId)
+				+ evict(Operation.LEVELS_BY_USER, (key, value) -> ((List<?>) key).get(0).equals(playerId))
+				+ evictMisses(Operation.USER_BY_ACCOUNT_ID, key -> key.equals(accountId))
+				+ evictMisses(Operation.SEARCH_USER, key -> key.equals(name));
+	}
+
+	/**
+	 * Removes the entries holding data of the user found when searching the given
+	 * name, if that search is cached, as well as the search itself.
+	 *
+	 * @param name the name searched
+	 * @return the number of entries removed
+	 */
+	public long invalidateUser(String name) {
+		var key = name.toLowerCase();
+		var user = (GDUser) caches.get(Operation.SEARCH_USER).getIfPresent(key);
+		return (user == null ? evict(Operation.SEARCH_USER, (k, value) -> k.equals(key)) : invalidateUser(user))
+				+ evictMisses(Operation.SEARCH_USER, k -> k.equals(key));
+	}
+
+	/**
+	 * Removes the entries holding data of the given level: the level itself, its
+	 * data and song, and the timely levels and search results that include it.
+	 *
+	 * @param levelId the level ID
+	 * @return the number of entries removed
+	 */
+	public long invalidateLevel(long levelId) {
+		return evict(Operation.LEVEL_BY_ID, (key, value) -> key.equals(levelId))
+				+ evict(Operation.LEVEL_DATA, (key, value) -> key.equals(levelId))
+				+ evict(Operation.LEVEL_SONG, (key, value) -> key.equals(levelId))
+				+ evict(Operation.TIMELY_LEVEL, (key, value) -> ((GDLevel) value).getId() == levelId)
+				+ evict(Operation.SEARCH_LEVELS, (key, value) -> containsLevel(value, levelId))
+				+ evict(Operation.LEVELS_BY_USER, (key, value) -> containsLevel(value, levelId))
+				+ evictMisses(Operation.LEVEL_BY_ID, key -> key.equals(levelId));
+	}
+
+	private long evict(Operation operation, BiPredicate<Object, Object> entryPredicate) {
+		var entries = caches.get(operation).asMap();
+		var count = 0L;
+		for (var entry : entries.entrySet()) {
+			if (entryPredicate.test(entry.getKey(), entry.getValue()) && entries.remove(entry.getKey(), entry.getValue())) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private long evictMisses(Operation operation, Predicate<Object> keyPredicate) {
+		var entries = misses.asMap();
+		var count = 0L;
+		for (var key : entries.keySet()) {
+			if (key.get(0) == operation && keyPredicate.test(key.get(1)) && entries.remove(key) != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static boolean containsLevel(Object searchResults, long levelId) {
+		return ((GDPaginator<GDLevel>) searchResults).asList().stream().anyMatch(level -> level.getId() == levelId);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <V> Mono<V> cached(Operation operation, Object key, Supplier<Mono<V>> request) {
+		var cache = caches.get(operation);
+		return Mono.defer(() -> {
+			var value = (V) cache.getIfPresent(key);
+			if (value != null) {
+				return Mono.just(value);
+			}
+			var fullKey = List.of(operation, key);
+			var miss = misses.getIfPresent(fullKey);
+			if (miss != null) {
+				missHitCount.incrementAndGet();
+				return Mono.error(miss);
+			}
+			return singleFlight(fullKey, () -> request.get()
+					.doOnNext(result -> cache.put(key, result))
+					.doOnError(MissingAccessException.class, e -> misses.put(fullKey, e)));
+		});
+	}
+
+	/**
+	 * Subscribers arriving while the request is in flight get its result too. The
+	 * request is forgotten as soon as it terminates, so that errors are not
+	 * shared with later callers.
+	 */
+	@SuppressWarnings("unchecked")
+	private <V> Mono<V> singleFlight(List<Object> inFlightKey, Supplier<Mono<V>> request) {
+		var created = new boolean[1];
+		var shared = inFlight.computeIfAbsent(inFlightKey, k -> {
+			created[0] = true;
+			return ((Mono<Object>) request.get())
+					.doFinally(signal -> inFlight.remove(k))
+					.cache();
+		});
+		if (!created[0]) {
+			coalescedCount.incrementAndGet();
+		}
+		return (Mono<V>) shared;
+	}
+}
@@ -42,7 +42,7 @@ public final class AccountCommand {
 				.withExtension(GDLinkedUserDao.class, dao -> dao.getByDiscordUserId(ctx.author().getId().asLong()))
 				.flatMap(Mono::justOrEmpty)
 				.filter(GDLinkedUserData::isLinkActivated)
-				.flatMap(linkedUser -> gd.client().getUserByAccountId(linkedUser.gdUserId()))
+				.flatMap(linkedUser -> gd.cache().getUserByAccountId(linkedUser.gdUserId()))
 				.map(user -> Tuples.of(true, ctx.translate("GDStrings", "currently_linked", user.getName())))
 				.defaultIfEmpty(Tuples.of(false, ctx.translate("GDStrings", "not_yet_linked")))
 				.flatMap(tuple -> ctx.reply(ctx.translate("GDStrings", "link_intro") + "\n\n"
@@ -1,12 +1,19 @@
 package com.github.alex1304.ultimategdbot.gdplugin.command;
 
+import static java.util.stream.Collectors.joining;
+
+import java.util.Arrays;
+
+import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
 import com.github.alex1304.ultimategdbot.api.command.Context;
 import com.github.alex1304.ultimategdbot.api.command.PermissionLevel;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDescriptor;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDoc;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandPermission;
 import com.github.alex1304.ultimategdbot.api.service.Root;
 import com.github.alex1304.ultimategdbot.gdplugin.GDService;
+import com.github.alex1304.ultimategdbot.gdplugin.cache.GDClientCache.Operation;
 
 import reactor.core.publisher.Mono;
 
@@ -22,8 +29,56 @@ public final class ClearGdCacheCommand {
 	
 	@CommandAction
 	public Mono<Void> run(Context ctx) {
-		return Mono.fromRunnable(gd.client()::clearCache)
-				.then(ctx.reply(ctx.translate("GDStrings", "cache_clear_success")))
+		return Mono.fromCallable(gd.cache()::clear)
+				.flatMap(count -> ctx.reply(ctx.translate("GDStrings", "cache_clear_success", count)))
+				.then();
+	}
+	
+	@CommandAction("user")
+	@CommandDoc("tr:GDStrings/cleargdcache_run_user")
+	public Mono<Void> runUser(Context ctx, String username) {
+		return Mono.fromCallable(() -> gd.cache().invalidateUser(username))
+				.flatMap(count -> ctx.reply(ctx.translate("GDStrings", "cache_clear_scoped_success", count)))
+				.then();
+	}
+	
+	@CommandAction("level")
+	@CommandDoc("tr:GDStrings/cleargdcache_run_level")
+	public Mono<Void> runLevel(Context ctx, long levelId) {
+		return Mono.fromCallable(() -> gd.cache().invalidateLevel(levelId))
+				.flatMap(count -> ctx.reply(ctx.translate("GDStrings", "cache_clear_scoped_success", count)))
+				.then();
+	}
+	
+	@CommandAction("operation")
+	@CommandDoc("tr:GDStrings/cleargdcache_run_operation")
+	public Mono<Void> runOperation(Context ctx, String operationName) {
+		var operation = Arrays.stream(Operation.values())
+				.filter(op -> op.configName().equalsIgnoreCase(operationName))
+				.findAny();
+		if (operation.isEmpty()) {
+			return Mono.error(new CommandFailedException(ctx.translate("GDStrings", "error_unknown_cache_operation",
+					Arrays.stream(Operation.values()).map(Operation::configName).collect(joining(", ")))));
+		}
+		return Mono.fromCallable(() -> gd.cache().invalidate(operation.get()))
+				.flatMap(count -> ctx.reply(ctx.translate("GDStrings", "cache_clear_scoped_success", count)))
+				.then();
+	}
+	
+	@CommandAction("stats")
+	@CommandDoc("tr:GDStrings/cleargdcache_run_stats")
+	public Mono<Void> runStats(Context ctx) {
+		var cache = gd.cache();
+		return ctx.reply(ctx.translate("GDStrings", "cache_stats", cache.getCoalescedCount(),
+						cache.getNotFoundHitCount()) + '\n' + cache.stats().entrySet().stream()
+						.map(entry -> ctx.translate("GDStrings", "cache_stats_entry",
+								entry.getKey().configName(),
+								cache.size(entry.getKey()),
+								entry.getValue().hitCount(),
+								entry.getValue().missCount(),
+								entry.getValue().hitRate() * 100,
+								entry.getValue().evictionCount()))
+						.collect(joining("\n")))
 				.then();
 	}
 }
@@ -21,6 +21,6 @@ public final class DailyCommand {
 	@CommandAction
 	@CommandDoc("tr:GDStrings/daily_run")
 	public Mono<Void> run(Context ctx) {
-		return gd.level().sendTimelyInfo(ctx, gd.client(), false).then();
+		return gd.level().sendTimelyInfo(ctx, gd.cache(), false).then();
 	}
 }
@@ -2,11 +2,9 @@ package com.github.alex1304.ultimategdbot.gdplugin.command;
 
 import static java.util.stream.Collectors.joining;
 
-import java.util.Collections;
-import java.util.List;
+import java.time.Duration;
+import java.time.Instant;
 
-import com.github.alex1304.jdash.entity.GDLevel;
-import com.github.alex1304.jdash.util.LevelSearchFilters;
 import com.github.alex1304.jdashevents.event.AwardedLevelAddedEvent;
 import com.github.alex1304.jdashevents.event.AwardedLevelRemovedEvent;
 import com.github.alex1304.jdashevents.event.AwardedLevelUpdatedEvent;
@@ -25,14 +23,14 @@ import com.github.alex1304.ultimategdbot.api.command.annotated.FlagInfo;
 import com.github.alex1304.ultimategdbot.api.command.menu.InteractiveMenu;
 import com.github.alex1304.ultimategdbot.api.command.menu.PageNumberOutOfRangeException;
 import com.github.alex1304.ultimategdbot.api.service.Root;
+import com.github.alex1304.ultimategdbot.api.util.DurationUtils;
 import com.github.alex1304.ultimategdbot.api.util.Markdown;
 import com.github.alex1304.ultimategdbot.api.util.MessageSpecTemplate;
 import com.github.alex1304.ultimategdbot.gdplugin.GDService;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.BackfillPlan;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.BroadcastScheduler.Priority;
 import com.github.alex1304.ultimategdbot.gdplugin.level.GDLevelService;
 
-import reactor.core.publisher.EmitterProcessor;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.Nullable;
 
@@ -95,12 +93,116 @@ public final class GDEventsCommand {
 				return Mono.fromRunnable(gd.event().loop()::stop)
 						.then(ctx.reply(ctx.translate("GDStrings", "event_loop_stopped")))
 						.then();
+			case "status":
+				var loop = gd.event().loop();
+				return ctx.reply(ctx.translate("GDStrings", "event_loop_status",
+								ctx.translate("GDStrings", loop.isStarted()
+										? "event_loop_status_running" : "event_loop_status_not_running"),
+								DurationUtils.format(loop.getCurrentInterval()),
+								DurationUtils.format(loop.getMinInterval()),
+								DurationUtils.format(loop.getMaxInterval()),
+								loop.getScanCount(),
+								loop.getLastChangeCount(),
+								loop.getTotalChangeCount()))
+						.then();
+			case "health":
+				var healthLoop = gd.event().loop();
+				var now = Instant.now();
+				return ctx.reply(ctx.translate("GDStrings", "event_loop_health",
+								DurationUtils.format(healthLoop.getLastScanDuration()),
+								DurationUtils.format(healthLoop.getScanDeadline()),
+								healthLoop.getWatchdogRestartCount()) + '\n'
+								+ healthLoop.getScannerHealth().stream()
+										.map(health -> ctx.translate("GDStrings", "event_loop_health_scanner",
+												health.getScannerName(),
+												health.getLastOutcome().name().toLowerCase(),
+												DurationUtils.format(health.getLastDuration()),
+												health.getLastSuccess()
+														.map(time -> ctx.translate("GDStrings", "event_loop_health_ago",
+																DurationUtils.format(Duration.between(time, now))))
+														.orElseGet(() -> ctx.translate("GDStrings", "event_loop_health_never")),
+												health.getConsecutiveFailures(),
+												health.getTimeoutCount())
+												+ health.getLastError().map(error -> '\n' + Markdown.code(error)).orElse(""))
+										.collect(joining("\n")))
+						.then();
 			default:
 				return Mono.error(new CommandFailedException(
 						ctx.translate("GDStrings", "error_unknown_action", ctx.prefixUsed())));
 		}
 	}
 	
+	@CommandAction("broadcasts")
+	@CommandDoc("tr:GDStrings/gdevents_run_broadcasts")
+	public Mono<Void> runBroadcasts(Context ctx) {
+		var scheduler = gd.event().broadcastScheduler();
+		var schedulerStats = ctx.translate("GDStrings", "gdevents_broadcasts_scheduler",
+				scheduler.getQueueDepth(Priority.PUBLIC_POST),
+				scheduler.getQueueDepth(Priority.EDIT),
+				scheduler.getQueueDepth(Priority.DM),
+				scheduler.getDispatchedCount(),
+				scheduler.getExpiredCount(),
+				DurationUtils.format(scheduler.getAverageWait()),
+				DurationUtils.format(scheduler.getMaxWait()));
+		var crosspostQueue = gd.event().crosspostQueue();
+		schedulerStats += "\n\n" + ctx.translate("GDStrings", "gdevents_broadcasts_crosspost",
+				crosspostQueue.getQueueSize(),
+				crosspostQueue.getCompletedCount(),
+				crosspostQueue.getFailedCount(),
+				crosspostQueue.getDroppedCount(),
+				crosspostQueue.getRetryCount(),
+				DurationUtils.format(crosspostQueue.getAverageWait()),
+				DurationUtils.format(crosspostQueue.getMaxWait()));
+		var inProgress = gd.event().guildBroadcastsInProgress();
+		if (inProgress.isEmpty()) {
+			return ctx.reply(schedulerStats + "\n\n" + ctx.translate("GDStrings", "gdevents_broadcasts_none")).then();
+		}
+		return ctx.reply(schedulerStats + "\n\n" + ctx.translate("GDStrings", "gdevents_broadcasts_in_progress") + '\n'
+						+ inProgress.stream()
+								.map(progress -> ctx.translate("GDStrings", "gdevents_broadcasts_item", progress.getLogText(),
+										progress.getProcessed(), progress.getTotal(), progress.getFailed(),
+										DurationUtils.format(progress.getElapsed())))
+								.collect(joining("\n")))
+				.then();
+	}
+	
+	@CommandAction("benchmark")
+	@CommandDoc("tr:GDStrings/gdevents_run_benchmark")
+	@FlagDoc(
+			@FlagInfo(name = "concurrency", valueFormat = "number", description = "tr:GDStrings/gdevents_flag_concurrency")
+	)
+	public Mono<Void> runBenchmark(Context ctx, int eventCount, @Nullable Integer guildCount) {
+		var concurrency = ctx.flags().get("concurrency").map(Integer::parseInt).orElse(4);
+		if (eventCount < 1 || concurrency < 1) {
+			return Mono.error(new CommandFailedException(ctx.translate("GDStrings", "error_invalid_benchmark_params")));
+		}
+		return ctx.reply(ctx.translate("GDStrings", "benchmark_running", eventCount))
+				.then(gd.event().benchmark(eventCount, guildCount == null ? -1 : guildCount, concurrency))
+				.onErrorMap(IllegalStateException.class, e -> new CommandFailedException(
+						ctx.translate("GDStrings", "error_benchmark_dry_run_only")))
+				.flatMap(report -> ctx.reply(ctx.translate("GDStrings", "benchmark_report",
+						report.getEventCount(),
+						report.getMessageCount(),
+						DurationUtils.format(report.getElapsed()),
+						String.format("%.1f", report.getThroughput()),
+						DurationUtils.format(report.getLatencyPercentile(50)),
+						DurationUtils.format(report.getLatencyPercentile(95)),
+						DurationUtils.format(report.getLatencyPercentile(99)),
+						DurationUtils.format(report.getLatencyPercentile(100)),
+						report.getRequestCount(),
+						report.getRateLimitedCount()) + '\n'
+						+ report.getRequestCountByOperation().entrySet().stream()
+								.map(entry -> ctx.translate("GDStrings", "benchmark_operation", entry.getKey(),
+										entry.getValue(), truncate(report.getLastPayloadByOperation()
+												.getOrDefault(entry.getKey(), "-").replace('`', '\''), 200)))
+								.collect(joining("\n"))))
+				.then();
+	}
+	
+	private static String truncate(String text, int maxLength) {
+		return text.length() <= maxLength ? text : text.substring(0, maxLength - 3) + "...";
+	}
+	
 	@CommandAction("dispatch_all_awarded_resuming_from")
 	@CommandDoc("tr:GDStrings/gdevents_run_dispatch_all_awarded_resuming_from")
 	@FlagDoc(
@@ -118,65 +220,84 @@ public final class GDEventsCommand {
 			return Mono.error(new CommandFailedException(ctx.translate("GDStrings", "error_invalid_max_page")));
 		}
 		
-		var processor = EmitterProcessor.<GDLevel>create(false);
-		var sink = processor.sink(FluxSink.OverflowStrategy.BUFFER);
-		
-		Mono.zip(
-				processor.then(),
-				Flux.range(0, maxPage)
-						.concatMap(n -> gd.client().browseAwardedLevels(LevelSearchFilters.create(), n)
-								.flatMapMany(Flux::fromIterable)
-								.doOnNext(level -> {
-									if (level.getId() == levelId) {
-										sink.complete();
-									} else {
-										sink.next(level);
-									}
-								}))
-						.doOnComplete(() -> sink.error(new CommandFailedException(
-								ctx.translate("GDStrings", "error_max_page_reached", maxPage))))
-						.doOnError(sink::error)
-						.then())
-				.onErrorResume(e -> Mono.empty())
-				.subscribe();
-		
-		return processor.map(AwardedLevelAddedEvent::new)
-				.collectList()
-				.doOnNext(Collections::reverse)
-				.flatMap(events -> {
-					var lastPage = (events.size() - 1) / 10;
+		var backfill = gd.event().backfill();
+		return backfill.locate(levelId, maxPage)
+				.switchIfEmpty(Mono.error(() -> new CommandFailedException(
+						ctx.translate("GDStrings", "error_max_page_reached", maxPage))))
+				.flatMap(plan -> {
+					var lastPage = Math.max(0, plan.getPreview().size() - 1) / 10;
 					InteractiveMenu menu;
 					if (lastPage == 0) {
 						menu = gd.bot().interactiveMenu()
-								.create(paginateEvents(ctx, 0, 0, events).getContent())
+								.create(paginateLevels(ctx, 0, 0, plan).getContent())
 								.closeAfterReaction(false)
 								.addReactionItem("cross", interaction -> Mono.fromRunnable(interaction::closeMenu));
 					} else {
 						menu = gd.bot().interactiveMenu()
-								.createPaginated((tr, page) -> paginateEvents(tr, page, lastPage, events));
+								.createPaginated((tr, page) -> paginateLevels(tr, page, lastPage, plan));
 					}
 					return menu.deleteMenuOnClose(true)
-							.addReactionItem("success", interaction -> {
-								events.forEach(gd.event().dispatcher()::dispatch);
-								return gd.bot().emoji().get("success")
-										.flatMap(success -> ctx.reply(success + ' '
-												+ ctx.translate("GDStrings", "dispatch_success_multi", events.size())))
-										.then(Mono.fromRunnable(interaction::closeMenu));
-							})
+							.addReactionItem("success", interaction -> backfill.start(levelId, plan)
+									.onErrorMap(IllegalStateException.class, e -> new CommandFailedException(
+											ctx.translate("GDStrings", "error_backfill_in_progress")))
+									.then(gd.bot().emoji().get("success"))
+									.flatMap(success -> ctx.reply(success + ' '
+											+ ctx.translate("GDStrings", "dispatch_backfill_started", plan.size())))
+									.then(Mono.fromRunnable(interaction::closeMenu)))
 							.open(ctx);
 				})
 				.then();
 	}
 	
-	private static MessageSpecTemplate paginateEvents(Translator tr, int page, int lastPage, List<AwardedLevelAddedEvent> events) {
+	private static MessageSpecTemplate paginateLevels(Translator tr, int page, int lastPage, BackfillPlan plan) {
 		PageNumberOutOfRangeException.check(page, 0, lastPage);
-		return new MessageSpecTemplate(tr.translate("GDStrings", "dispatch_list") + "\n\n"
+		var preview = plan.getPreview();
+		return new MessageSpecTemplate(tr.translate("GDStrings", "dispatch_backfill_found", plan.size()) + ' '
+				+ (preview.size() < plan.size()
+						? tr.translate("GDStrings", "dispatch_backfill_preview", preview.size())
+						: tr.translate("GDStrings", "dispatch_list")) + "\n\n"
 				+ tr.translate("CommonStrings", "pagination_page_counter", page + 1, lastPage + 1) + '\n'
-				+ events.stream()
+				+ preview.stream()
 						.skip(page * 10)
 						.limit(10)
-						.map(event -> Markdown.quote(GDLevelService.toString(event.getAddedLevel())))
+						.map(level -> Markdown.quote(GDLevelService.toString(level)))
 						.collect(joining("\n"))
 				+ "\n\n" + tr.translate("GDStrings", "dispatch_confirm"));
 	}
+	
+	@CommandAction("backfill")
+	@CommandDoc("tr:GDStrings/gdevents_run_backfill")
+	@FlagDoc(
+			@FlagInfo(name = "max-page", valueFormat = "number", description = "tr:GDStrings/gdevents_flag_max_page")
+	)
+	public Mono<Void> runBackfill(Context ctx, String action) {
+		var backfill = gd.event().backfill();
+		switch (action) {
+			case "status":
+				return ctx.reply(backfill.getProgress()
+								.map(progress -> ctx.translate("GDStrings", "backfill_status", progress.getBackfillId(),
+										ctx.translate("GDStrings", progress.isDone()
+												? "backfill_status_done" : "backfill_status_running"),
+										progress.getDispatched(), progress.getTotal(), progress.getFailed(),
+										DurationUtils.format(progress.getElapsed())))
+								.orElseGet(() -> ctx.translate("GDStrings", "backfill_none")))
+						.then();
+			case "resume":
+				var maxPage = ctx.flags().get("max-page").map(Integer::parseInt).orElse(10);
+				return backfill.resume(maxPage)
+						.onErrorMap(IllegalStateException.class, e -> new CommandFailedException(
+								ctx.translate("GDStrings", "error_backfill_in_progress")))
+						.switchIfEmpty(Mono.error(() -> new CommandFailedException(
+								ctx.translate("GDStrings", "error_backfill_nothing_to_resume", maxPage))))
+						.flatMap(progress -> ctx.reply(ctx.translate("GDStrings", "backfill_resumed",
+								progress.getBackfillId(), progress.getTotal() - progress.getDispatched())))
+						.then();
+			case "cancel":
+				return ctx.reply(ctx.translate("GDStrings", backfill.cancel() ? "backfill_cancelled" : "backfill_none"))
+						.then();
+			default:
+				return Mono.error(new CommandFailedException(
+						ctx.translate("GDStrings", "error_unknown_action", ctx.prefixUsed())));
+		}
+	}
 }
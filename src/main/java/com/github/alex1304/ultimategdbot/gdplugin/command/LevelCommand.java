@@ -1,6 +1,5 @@
 package com.github.alex1304.ultimategdbot.gdplugin.command;
 
-import com.github.alex1304.jdash.util.LevelSearchFilters;
 import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
 import com.github.alex1304.ultimategdbot.api.command.Context;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
@@ -27,6 +26,6 @@ public final class LevelCommand {
 			return Mono.error(new CommandFailedException(ctx.translate("GDStrings", "error_invalid_characters")));
 		}
 		return gd.level().searchAndSend(ctx, ctx.translate("GDStrings", "search_results", query),
-				() -> gd.client().searchLevels(query, LevelSearchFilters.create(), 0));
+				page -> gd.cache().searchLevels(query, page));
 	}
 }
@@ -137,7 +137,7 @@ public final class LevelRequestCommand {
 						.map(n -> n < lrs.maxQueuedSubmissionsPerUser()))
 				.switchIfEmpty(Mono.error(() -> new CommandFailedException(ctx.translate("GDStrings",
 						"error_max_submissions_reached", lvlReqCfg.get().maxQueuedSubmissionsPerUser()))))
-				.then(gd.client()
+				.then(gd.cache()
 						.getLevelById(levelId)
 						.onErrorMap(MissingAccessException.class, e -> new CommandFailedException(
 								ctx.translate("GDStrings", "error_level_not_found")))
@@ -193,7 +193,7 @@ public final class LevelRequestCommand {
 		var guildId = ctx.event().getGuildId().orElseThrow();
 		return gd.levelRequest().retrieveConfig(ctx)
 				.flatMap(lvlReqCfg -> gd.levelRequest().retrieveSubmissionsForGuild(guildId.asLong())
-						.flatMap(submission -> gd.client().getLevelById(submission.levelId())
+						.flatMap(submission -> gd.cache().getLevelById(submission.levelId())
 								.filter(level -> level.getStars() > 0)
 								.flatMap(level -> doReview(ctx, submission.submissionId(), ctx.translate("GDStrings", "rated_after_submission"),
 										guildId.asLong(), lvlReqCfg, submission, true).thenReturn(1))
@@ -263,7 +263,7 @@ public final class LevelRequestCommand {
 								.collect(toUnmodifiableList()))
 						.build()))
 				.flatMap(r -> gd.bot().database().useExtension(GDLevelRequestReviewDao.class, dao -> dao.insert(r)))
-				.then(Mono.defer(() -> gd.client().getLevelById(submission.get().levelId())
+				.then(Mono.defer(() -> gd.cache().getLevelById(submission.get().levelId())
 						.doOnNext(level::set)
 						.onErrorMap(MissingAccessException.class, e -> new CommandFailedException(ctx.translate("GDStrings", "error_level_deleted", ctx.prefixUsed())))))
 				.thenMany(Flux.defer(() -> Flux.fromIterable(submission.get().reviews())))
@@ -23,6 +23,6 @@ public final class LevelsbyCommand {
 	@CommandDoc("tr:GDStrings/levelsby_run")
 	public Mono<Void> run(Context ctx, GDUser user) {
 		return gd.level().searchAndSend(ctx, ctx.translate("GDStrings", "player_levels", user.getName()),
-				() -> gd.client().getLevelsByUser(user, 0));
+				page -> gd.cache().getLevelsByUser(user, page));
 	}
 }
@@ -31,9 +31,12 @@ public final class ModWave {
 	@CommandAction
 	@CommandDoc("tr:GDStrings/checkmod_run")
 	public Mono<Void> run(Context ctx, String args) {
-		gd.client().clearCache();
 		return Flux.fromIterable(ctx.args().getTokens().subList(1, ctx.args().tokenCount()))
 				.flatMap(username -> gd.user().stringToUser(ctx, username))
+				// Arguments may be mentions or IDs, so the cache is invalidated for the
+				// resolved user, and their role is fetched again bypassing the cache
+				.doOnNext(gd.cache()::invalidateUser)
+				.flatMap(user -> gd.client().getUserByAccountId(user.getAccountId()))
 				.flatMap(user -> Mono.zip(
 								gd.bot().emoji().get("success"),
 								gd.bot().emoji().get("failed"),
@@ -0,0 +1,107 @@
+package com.github.alex1304.ultimategdbot.gdplugin.command;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.alex1304.jdash.entity.GDUser;
+import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
+import com.github.alex1304.ultimategdbot.api.command.Context;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDescriptor;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDoc;
+import com.github.alex1304.ultimategdbot.api.command.annotated.FlagDoc;
+import com.github.alex1304.ultimategdbot.api.command.annotated.FlagInfo;
+import com.github.alex1304.ultimategdbot.api.service.Root;
+import com.github.alex1304.ultimategdbot.gdplugin.GDService;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDRateSubscriptionData;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.RateSubscriptionIndex;
+
+import reactor.core.publisher.Mono;
+
+@CommandDescriptor(
+		aliases = "ratesub",
+		shortDescription = "tr:GDStrings/ratesub_desc"
+)
+public final class RateSubCommand {
+
+	@Root
+	private GDService gd;
+
+	@CommandAction
+	@CommandDoc("tr:GDStrings/ratesub_run")
+	public Mono<Void> run(Context ctx) {
+		return gd.event().rateSubscriptions().list(ctx.author().getId().asLong())
+				.flatMap(subscriptions -> ctx.reply(subscriptions.isEmpty()
+						? ctx.translate("GDStrings", "ratesub_none", ctx.prefixUsed())
+						: ctx.translate("GDStrings", "ratesub_list") + '\n' + subscriptions.stream()
+								.map(subscription -> format(ctx, subscription))
+								.collect(joining("\n"))))
+				.then();
+	}
+
+	@CommandAction("add")
+	@CommandDoc("tr:GDStrings/ratesub_run_add")
+	@FlagDoc({
+			@FlagInfo(name = "creator", valueFormat = "gd_username", description = "tr:GDStrings/ratesub_flag_creator"),
+			@FlagInfo(name = "difficulty", valueFormat = "auto|easy|normal|hard|harder|insane|demon", description = "tr:GDStrings/ratesub_flag_difficulty"),
+			@FlagInfo(name = "demon", valueFormat = "easy|medium|hard|insane|extreme", description = "tr:GDStrings/ratesub_flag_demon"),
+			@FlagInfo(name = "rating", valueFormat = "featured|epic", description = "tr:GDStrings/ratesub_flag_rating")
+	})
+	public Mono<Void> runAdd(Context ctx) {
+		var difficulty = readFlag(ctx, "difficulty", RateSubscriptionIndex.DIFFICULTIES);
+		var demonDifficulty = readFlag(ctx, "demon", RateSubscriptionIndex.DEMON_DIFFICULTIES);
+		var rating = readFlag(ctx, "rating", RateSubscriptionIndex.RATINGS);
+		var creator = ctx.flags().get("creator");
+		if (creator.isEmpty() && difficulty.isEmpty() && demonDifficulty.isEmpty() && rating.isEmpty()) {
+			return Mono.error(new CommandFailedException(ctx.translate("GDStrings", "error_ratesub_no_criteria",
+					ctx.prefixUsed())));
+		}
+		return Mono.justOrEmpty(creator)
+				.flatMap(username -> gd.user().stringToUser(ctx, username))
+				.map(Optional::of)
+				.defaultIfEmpty(Optional.empty())
+				.flatMap(user -> gd.event().rateSubscriptions().subscribe(ctx.author().getId().asLong(),
+						user.map(GDUser::getId).orElse(null),
+						user.map(GDUser::getName).orElse(null),
+						difficulty.orElse(null),
+						demonDifficulty.orElse(null),
+						rating.orElse(null)))
+				.onErrorMap(IllegalStateException.class, e -> new CommandFailedException(
+						ctx.translate("GDStrings", "error_ratesub_limit_reached")))
+				.flatMap(subscription -> gd.bot().emoji().get("success").flatMap(emoji -> ctx.reply(emoji + ' '
+						+ ctx.translate("GDStrings", "ratesub_added", format(ctx, subscription)))))
+				.then();
+	}
+
+	@CommandAction("remove")
+	@CommandDoc("tr:GDStrings/ratesub_run_remove")
+	public Mono<Void> runRemove(Context ctx, long subscriptionId) {
+		return gd.event().rateSubscriptions().unsubscribe(ctx.author().getId().asLong(), subscriptionId)
+				.filter(Boolean::booleanValue)
+				.switchIfEmpty(Mono.error(() -> new CommandFailedException(
+						ctx.translate("GDStrings", "error_ratesub_not_found", subscriptionId))))
+				.flatMap(deleted -> gd.bot().emoji().get("success").flatMap(emoji -> ctx.reply(emoji + ' '
+						+ ctx.translate("GDStrings", "ratesub_removed", subscriptionId))))
+				.then();
+	}
+
+	private static Optional<String> readFlag(Context ctx, String name, Set<String> allowedValues) {
+		var value = ctx.flags().get(name).map(String::toLowerCase);
+		if (value.isPresent() && !allowedValues.contains(value.get())) {
+			throw new CommandFailedException(ctx.translate("GDStrings", "error_ratesub_invalid_value", name,
+					String.join(", ", allowedValues)));
+		}
+		return value;
+	}
+
+	private static String format(Context ctx, GDRateSubscriptionData subscription) {
+		var criteria = new StringBuilder();
+		subscription.creatorName().ifPresent(v -> criteria.append(ctx.translate("GDStrings", "ratesub_item_creator", v)));
+		subscription.difficulty().ifPresent(v -> criteria.append(ctx.translate("GDStrings", "ratesub_item_difficulty", v)));
+		subscription.demonDifficulty().ifPresent(v -> criteria.append(ctx.translate("GDStrings", "ratesub_item_demon", v)));
+		subscription.rating().ifPresent(v -> criteria.append(ctx.translate("GDStrings", "ratesub_item_rating", v)));
+		return ctx.translate("GDStrings", "ratesub_item", subscription.subscriptionId(), criteria.toString().trim());
+	}
+}
@@ -21,6 +21,6 @@ public final class WeeklyCommand {
 	@CommandAction
 	@CommandDoc("tr:GDStrings/weekly_run")
 	public Mono<Void> run(Context ctx) {
-		return gd.level().sendTimelyInfo(ctx, gd.client(), true).then();
+		return gd.level().sendTimelyInfo(ctx, gd.cache(), true).then();
 	}
 }
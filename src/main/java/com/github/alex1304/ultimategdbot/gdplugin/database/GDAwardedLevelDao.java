@@ -2,6 +2,7 @@ package com.github.alex1304.ultimategdbot.gdplugin.database;
 
 import java.util.Optional;
 
+import org.jdbi.v3.core.result.ResultIterable;
 import org.jdbi.v3.core.transaction.TransactionIsolationLevel;
 import org.jdbi.v3.sqlobject.customizer.BindPojo;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
@@ -25,6 +26,12 @@ public interface GDAwardedLevelDao {
 	@SqlQuery("SELECT * FROM " + TABLE + " WHERE level_id = ?")
 	Optional<GDAwardedLevelData> get(long levelId);
 	
+	@SqlQuery("SELECT level_id FROM " + TABLE)
+	ResultIterable<Long> getAllIds();
+	
+	@SqlUpdate("DELETE FROM " + TABLE + " WHERE level_id = ?")
+	void delete(long levelId);
+	
 	@Transaction(TransactionIsolationLevel.SERIALIZABLE)
 	default void insertOrUpdate(GDAwardedLevelData data) {
 		get(data.levelId()).ifPresentOrElse(__ -> update(data), () -> insert(data));
@@ -0,0 +1,26 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+public interface GDBackfillCheckpointDao {
+
+	String TABLE = "gd_backfill_checkpoint";
+	
+	@SqlUpdate("INSERT INTO " + TABLE + "(stop_level_id, dispatched_count, start_date, update_date) VALUES (?, 0, ?, ?)")
+	@GetGeneratedKeys("backfill_id")
+	long create(long stopLevelId, Instant startDate, Instant updateDate);
+	
+	@SqlUpdate("UPDATE " + TABLE + " SET last_level_id = ?, dispatched_count = ?, update_date = ? WHERE backfill_id = ?")
+	void updateProgress(long lastLevelId, int dispatchedCount, Instant updateDate, long backfillId);
+	
+	@SqlUpdate("UPDATE " + TABLE + " SET completed = 1, update_date = ? WHERE backfill_id = ?")
+	void markCompleted(Instant updateDate, long backfillId);
+	
+	@SqlQuery("SELECT * FROM " + TABLE + " WHERE completed = 0 ORDER BY backfill_id DESC LIMIT 1")
+	Optional<GDBackfillCheckpointData> getLatestIncomplete();
+}
@@ -0,0 +1,24 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public interface GDBackfillCheckpointData {
+	
+	long backfillId();
+	
+	long stopLevelId();
+	
+	Optional<Long> lastLevelId();
+	
+	int dispatchedCount();
+	
+	Instant startDate();
+	
+	Instant updateDate();
+	
+	boolean isCompleted();
+}
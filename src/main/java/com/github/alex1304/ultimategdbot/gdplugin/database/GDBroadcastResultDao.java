@@ -0,0 +1,25 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+public interface GDBroadcastResultDao {
+
+	String TABLE = "gd_broadcast_result";
+	
+	@SqlBatch("INSERT INTO " + TABLE + "(level_id, channel_id, message_id, broadcast_date) "
+			+ "VALUES (:levelId, :channelId, :messageId, :broadcastDate)")
+	void insertAll(@Bind("levelId") long levelId, @Bind("channelId") List<Long> channelIds,
+			@Bind("messageId") List<Long> messageIds, @Bind("broadcastDate") Instant broadcastDate);
+	
+	@SqlQuery("SELECT * FROM " + TABLE + " WHERE level_id = ?")
+	List<GDBroadcastResultData> getAllForLevel(long levelId);
+	
+	@SqlUpdate("DELETE FROM " + TABLE + " WHERE broadcast_date < ?")
+	int deleteAllBefore(Instant date);
+}
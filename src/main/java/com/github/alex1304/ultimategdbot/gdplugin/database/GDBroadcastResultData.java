@@ -0,0 +1,17 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public interface GDBroadcastResultData {
+	
+	long levelId();
+	
+	long channelId();
+	
+	long messageId();
+	
+	Instant broadcastDate();
+}
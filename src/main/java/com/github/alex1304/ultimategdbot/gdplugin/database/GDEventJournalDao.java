@@ -0,0 +1,52 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+public interface GDEventJournalDao {
+
+	String TABLE = "gd_event_journal";
+	String DELIVERY_TABLE = "gd_event_delivery";
+	
+	@SqlBatch("INSERT INTO " + TABLE + "(event_type, entity_id, dispatch_date) VALUES (:eventType, :entityId, :dispatchDate)")
+	@GetGeneratedKeys("event_id")
+	List<Long> insertAll(@Bind("eventType") List<String> eventTypes, @Bind("entityId") List<Long> entityIds,
+			@Bind("dispatchDate") Instant dispatchDate);
+	
+	@SqlQuery("SELECT * FROM " + TABLE + " WHERE (channel_delivered = 0 OR dm_delivered = 0) "
+			+ "AND dispatch_date >= ? ORDER BY event_id")
+	List<GDEventJournalData> getUndeliveredSince(Instant date);
+	
+	@SqlUpdate("UPDATE " + TABLE + " SET global_delivered = 1 WHERE event_id = ?")
+	void markGlobalDelivered(long eventId);
+	
+	@SqlUpdate("UPDATE " + TABLE + " SET channel_delivered = 1 WHERE event_id = ?")
+	void markChannelDelivered(long eventId);
+	
+	@SqlUpdate("UPDATE " + TABLE + " SET dm_delivered = 1 WHERE event_id = ?")
+	void markDmDelivered(long eventId);
+	
+	@SqlUpdate("UPDATE " + TABLE + " SET global_delivered = 1, channel_delivered = 1, dm_delivered = 1 WHERE event_id = ?")
+	void markAllDelivered(long eventId);
+	
+	@SqlUpdate("DELETE FROM " + TABLE + " WHERE dispatch_date < ?")
+	int deleteAllBefore(Instant date);
+	
+	@SqlBatch("INSERT INTO " + DELIVERY_TABLE + "(event_id, channel_id) VALUES (:eventId, :channelId)")
+	void insertDeliveries(@Bind("eventId") long eventId, @Bind("channelId") List<Long> channelIds);
+	
+	@SqlQuery("SELECT channel_id FROM " + DELIVERY_TABLE + " WHERE event_id = ?")
+	List<Long> getDeliveredChannels(long eventId);
+	
+	@SqlUpdate("DELETE FROM " + DELIVERY_TABLE + " WHERE event_id = ?")
+	void deleteDeliveries(long eventId);
+	
+	@SqlUpdate("DELETE FROM " + DELIVERY_TABLE + " WHERE event_id NOT IN (SELECT event_id FROM " + TABLE + ")")
+	int deleteOrphanDeliveries();
+}
@@ -0,0 +1,23 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public interface GDEventJournalData {
+	
+	long eventId();
+	
+	String eventType();
+	
+	long entityId();
+	
+	Instant dispatchDate();
+	
+	boolean isGlobalDelivered();
+	
+	boolean isChannelDelivered();
+	
+	boolean isDmDelivered();
+}
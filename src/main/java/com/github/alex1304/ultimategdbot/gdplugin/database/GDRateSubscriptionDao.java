@@ -0,0 +1,28 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+public interface GDRateSubscriptionDao {
+
+	String TABLE = "gd_rate_subscription";
+	
+	@SqlUpdate("INSERT INTO " + TABLE + "(user_id, creator_id, creator_name, difficulty, demon_difficulty, rating, create_date) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?)")
+	@GetGeneratedKeys("subscription_id")
+	long create(long userId, Long creatorId, String creatorName, String difficulty, String demonDifficulty,
+			String rating, Instant createDate);
+	
+	@SqlUpdate("DELETE FROM " + TABLE + " WHERE subscription_id = ? AND user_id = ?")
+	int delete(long subscriptionId, long userId);
+	
+	@SqlQuery("SELECT * FROM " + TABLE + " WHERE user_id = ? ORDER BY subscription_id")
+	List<GDRateSubscriptionData> getAllForUser(long userId);
+	
+	@SqlQuery("SELECT * FROM " + TABLE)
+	List<GDRateSubscriptionData> getAll();
+}
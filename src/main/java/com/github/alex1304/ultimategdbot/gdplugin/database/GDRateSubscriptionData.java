@@ -0,0 +1,26 @@
+package com.github.alex1304.ultimategdbot.gdplugin.database;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public interface GDRateSubscriptionData {
+	
+	long subscriptionId();
+	
+	long userId();
+	
+	Optional<Long> creatorId();
+	
+	Optional<String> creatorName();
+	
+	Optional<String> difficulty();
+	
+	Optional<String> demonDifficulty();
+	
+	Optional<String> rating();
+	
+	Instant createDate();
+}
@@ -0,0 +1,190 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.alex1304.jdash.client.AuthenticatedGDClient;
+import com.github.alex1304.jdash.entity.GDLevel;
+import com.github.alex1304.jdash.util.GDPaginator;
+import com.github.alex1304.jdash.util.LevelSearchFilters;
+import com.github.alex1304.jdashevents.event.AwardedLevelAddedEvent;
+import com.github.alex1304.jdashevents.event.AwardedLevelRemovedEvent;
+import com.github.alex1304.jdashevents.event.AwardedLevelUpdatedEvent;
+import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDAwardedLevelDao;
+import com.github.alex1304.ultimategdbot.gdplugin.util.LongHashSet;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Detects changes in the first page of the awarded section. The state is
+ * seeded from the gd_awarded_level table on the first scan, so that levels
+ * rated or unrated while the bot was offline are still announced, and levels
+ * that were already announced are not announced again. The table doesn't
+ * know the order of the awarded section, so unrates are only detected by
+ * comparing pages the scanner has actually seen, starting from the second
+ * scan. When the whole first page is new, the following pages are browsed
+ * until a known level is found, so that large rate waves are fully announced.
+ */
+class AwardedLevelScanner implements EventScanner {
+
+	private static final Logger LOGGER = Loggers.getLogger(AwardedLevelScanner.class);
+
+	private final BotService bot;
+	private final RequestBudget requestBudget;
+	private final int catchupMaxPages;
+	private final int catchupConcurrency;
+	// Only accessed from scan(), which never runs concurrently with itself
+	private LongHashSet knownIds;
+	private List<Long> previousIds;
+	private Map<Long, GDLevel> previousLevels = Map.of();
+
+	AwardedLevelScanner(BotService bot, RequestBudget requestBudget, int catchupMaxPages, int catchupConcurrency) {
+		this.bot = bot;
+		this.requestBudget = requestBudget;
+		this.catchupMaxPages = catchupMaxPages;
+		this.catchupConcurrency = catchupConcurrency;
+	}
+
+	@Override
+	public String name() {
+		return "awarded_levels";
+	}
+
+	@Override
+	public Flux<GDEvent> scan(AuthenticatedGDClient gdClient) {
+		return gdClient.browseAwardedLevels(LevelSearchFilters.create(), 0)
+				.map(GDPaginator::asList)
+				.flatMapMany(page -> (knownIds == null ? seed() : Mono.<Void>empty())
+						.then(Mono.defer(() -> catchUp(gdClient, page)))
+						.flatMapMany(levels -> diff(gdClient, levels)));
+	}
+	
+	private Mono<List<GDLevel>> catchUp(AuthenticatedGDClient gdClient, List<GDLevel> firstPage) {
+		if (previousIds == null || firstPage.isEmpty() || firstPage.stream().anyMatch(this::isKnown)) {
+			return Mono.just(firstPage);
+		}
+		LOGGER.info("No known level found in the first page of the awarded section, browsing next pages");
+		return Flux.range(1, Math.max(0, catchupMaxPages - 1))
+				.flatMapSequential(page -> requestBudget.acquire(1)
+						.then(gdClient.browseAwardedLevels(LevelSearchFilters.create(), page))
+						.map(GDPaginator::asList), catchupConcurrency)
+				.takeUntil(levels -> levels.isEmpty() || levels.stream().anyMatch(this::isKnown))
+				.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Awarded section catch-up interrupted", e)))
+				.reduce(new ArrayList<GDLevel>(firstPage), (all, levels) -> {
+					all.addAll(levels);
+					return all;
+				})
+				.doOnNext(all -> {
+					if (all.stream().noneMatch(this::isKnown)) {
+						LOGGER.warn("No known level found after browsing {} levels of the awarded section, "
+								+ "older rates may not be announced", all.size());
+					}
+				})
+				.map(List::copyOf);
+	}
+	
+	private boolean isKnown(GDLevel level) {
+		return knownIds.contains(level.getId()) || previousLevels.containsKey(level.getId())
+				|| previousIds.contains(level.getId());
+	}
+
+	private Mono<Void> seed() {
+		return bot.database()
+				.withExtension(GDAwardedLevelDao.class, dao -> {
+					var ids = new LongHashSet(1024);
+					dao.getAllIds().forEach(ids::add);
+					return ids;
+				})
+				.doOnNext(ids -> {
+					knownIds = ids;
+					// An empty previous page still detects rates against the known levels,
+					// but detects no unrate until a page has been seen
+					previousIds = knownIds.isEmpty() ? null : List.of();
+					LOGGER.info("Loaded {} known awarded levels", knownIds.size());
+				})
+				.then();
+	}
+
+	private Flux<GDEvent> diff(AuthenticatedGDClient gdClient, List<GDLevel> page) {
+		var previous = previousIds;
+		var previousById = previousLevels;
+		previousIds = new ArrayList<>();
+		previousLevels = new HashMap<>();
+		page.forEach(level -> {
+			previousIds.add(level.getId());
+			previousLevels.put(level.getId(), level);
+		});
+		if (previous == null) {
+			// Nothing known yet, take the current page as a baseline
+			page.forEach(level -> knownIds.add(level.getId()));
+			return Flux.empty();
+		}
+		var currentIds = new HashSet<Long>(previousIds);
+		var added = new ArrayList<GDEvent>();
+		var updated = new ArrayList<GDEvent>();
+		var reachedKnownLevel = false;
+		for (var level : page) {
+			var old = previousById.get(level.getId());
+			if (old != null && isRatingChanged(old, level)) {
+				updated.add(new AwardedLevelUpdatedEvent(old, level));
+			}
+			// Page is sorted from most recent to oldest, so unknown levels placed after
+			// a known one were rated earlier and must have been announced already
+			reachedKnownLevel |= old != null || knownIds.contains(level.getId());
+			if (!reachedKnownLevel) {
+				added.add(new AwardedLevelAddedEvent(level));
+				knownIds.add(level.getId());
+			}
+		}
+		// Announce the oldest first
+		Collections.reverse(added);
+		return Flux.<GDEvent>fromIterable(added)
+				.concatWith(Flux.fromIterable(updated))
+				.concatWith(Flux.fromIterable(removedIds(previous, currentIds))
+						.filter(knownIds::remove)
+						.concatMap(id -> Mono.justOrEmpty(previousById.get(id))
+								.switchIfEmpty(gdClient.getLevelById(id))
+								.map(AwardedLevelRemovedEvent::new)
+								.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Unable to fetch unrated level " + id, e)))));
+	}
+
+	/**
+	 * Levels that disappeared from the bottom of the page are assumed to have
+	 * been pushed to the next page by new rates, so they are only considered
+	 * removed if a level that was placed after them is still present.
+	 */
+	private static List<Long> removedIds(List<Long> previous, Set<Long> currentIds) {
+		var lastKeptIndex = -1;
+		for (var i = 0 ; i < previous.size() ; i++) {
+			if (currentIds.contains(previous.get(i))) {
+				lastKeptIndex = i;
+			}
+		}
+		var removed = new ArrayList<Long>();
+		for (var i = 0 ; i < lastKeptIndex ; i++) {
+			if (!currentIds.contains(previous.get(i))) {
+				removed.add(previous.get(i));
+			}
+		}
+		return removed;
+	}
+
+	static boolean isRatingChanged(GDLevel old, GDLevel level) {
+		return old.getStars() != level.getStars()
+				|| old.getFeaturedScore() != level.getFeaturedScore()
+				|| old.isEpic() != level.isEpic()
+				|| old.hasCoinsVerified() != level.hasCoinsVerified()
+				|| old.getDifficulty() != level.getDifficulty()
+				|| old.getDemonDifficulty() != level.getDemonDifficulty();
+	}
+}
@@ -0,0 +1,264 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.alex1304.jdash.client.AuthenticatedGDClient;
+import com.github.alex1304.jdash.entity.GDLevel;
+import com.github.alex1304.jdash.util.LevelSearchFilters;
+import com.github.alex1304.jdashevents.GDEventDispatcher;
+import com.github.alex1304.jdashevents.event.AwardedLevelAddedEvent;
+import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDBackfillCheckpointDao;
+import com.github.alex1304.ultimategdbot.gdplugin.util.LongHashSet;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Re-dispatches awarded level events for levels that were rated after a given
+ * level, typically after an outage of the event loop. Locating the given level
+ * only keeps the IDs of the levels found on the way, and the pages they were
+ * found on are browsed again backwards when dispatching, one at a time, so
+ * that memory stays bounded however many levels were missed. Events are
+ * dispatched from the oldest rate to the most recent one at a fixed rate, and
+ * progress is checkpointed in database so that an interrupted backfill can be
+ * resumed. Only one backfill can run at a time.
+ */
+public final class BackfillEngine {
+
+	private static final Logger LOGGER = Loggers.getLogger(BackfillEngine.class);
+	private static final int PREVIEW_SIZE = 50;
+	// How many pages further a level may have moved as new levels got rated
+	private static final int MAX_PAGE_SHIFT = 2;
+
+	private final BotService bot;
+	private final AuthenticatedGDClient gdClient;
+	private final GDEventDispatcher dispatcher;
+	private final RequestBudget requestBudget;
+	private final Duration dispatchInterval;
+	private final AtomicBoolean busy = new AtomicBoolean();
+	private volatile BackfillProgress current;
+	private volatile Disposable running;
+
+	BackfillEngine(BotService bot, AuthenticatedGDClient gdClient, GDEventDispatcher dispatcher,
+			RequestBudget requestBudget, Duration dispatchInterval) {
+		this.bot = bot;
+		this.gdClient = gdClient;
+		this.dispatcher = dispatcher;
+		this.requestBudget = requestBudget;
+		this.dispatchInterval = dispatchInterval;
+	}
+
+	/**
+	 * Browses the awarded section until the given level is found.
+	 *
+	 * @param stopLevelId the ID of the last level that does not need to be
+	 *                    dispatched
+	 * @param maxPages    the maximum number of pages to browse
+	 * @return a Mono emitting the plan of the levels rated after the given one,
+	 *         or empty if the level was not found within the max number of pages
+	 */
+	public Mono<BackfillPlan> locate(long stopLevelId, int maxPages) {
+		return Mono.defer(() -> {
+			var plan = new BackfillPlan.Builder(PREVIEW_SIZE);
+			return Flux.range(0, maxPages)
+					.concatMap(page -> browse(page).map(levels -> {
+						for (var level : levels) {
+							if (level.getId() == stopLevelId) {
+								return true;
+							}
+							plan.add(page, level);
+						}
+						return false;
+					}))
+					.takeUntil(Boolean::booleanValue)
+					.last(false)
+					.filter(Boolean::booleanValue)
+					.map(found -> plan.build());
+		});
+	}
+
+	/**
+	 * Starts a new backfill for the given levels.
+	 *
+	 * @param stopLevelId the ID of the level the backfill was started from
+	 * @param plan        the levels to dispatch, as returned by
+	 *                    {@link #locate(long, int)}
+	 * @return a Mono emitting the progress of the backfill once started, or an
+	 *         {@link IllegalStateException} if a backfill is already in progress
+	 */
+	public Mono<BackfillProgress> start(long stopLevelId, BackfillPlan plan) {
+		return exclusively(bot.database()
+				.withExtension(GDBackfillCheckpointDao.class, dao -> dao.create(stopLevelId, Instant.now(), Instant.now()))
+				.flatMap(backfillId -> launch(new BackfillProgress(backfillId, plan.size(), 0), plan)));
+	}
+
+	/**
+	 * Resumes the most recent backfill that was interrupted before completion.
+	 *
+	 * @param maxPages the maximum number of pages to browse in order to find
+	 *                 the last level that was dispatched
+	 * @return a Mono emitting the progress of the backfill once resumed, empty
+	 *         if there is no backfill to resume, or an
+	 *         {@link IllegalStateException} if a backfill is already in progress
+	 */
+	public Mono<BackfillProgress> resume(int maxPages) {
+		return exclusively(bot.database()
+				.withExtension(GDBackfillCheckpointDao.class, GDBackfillCheckpointDao::getLatestIncomplete)
+				.flatMap(Mono::justOrEmpty)
+				.flatMap(checkpoint -> locate(checkpoint.lastLevelId().orElse(checkpoint.stopLevelId()), maxPages)
+						.flatMap(plan -> launch(new BackfillProgress(checkpoint.backfillId(), plan.size(),
+								checkpoint.dispatchedCount()), plan))));
+	}
+
+	/**
+	 * Cancels the backfill in progress. Its checkpoint is kept so that it can
+	 * be resumed later.
+	 *
+	 * @return true if a backfill was cancelled
+	 */
+	public boolean cancel() {
+		var disposable = running;
+		if (disposable == null || disposable.isDisposed()) {
+			return false;
+		}
+		disposable.dispose();
+		return true;
+	}
+
+	/**
+	 * Gets the progress of the backfill in progress or of the last one that
+	 * ran.
+	 *
+	 * @return the progress, if any
+	 */
+	public Optional<BackfillProgress> getProgress() {
+		return Optional.ofNullable(current);
+	}
+
+	/**
+	 * Runs the given Mono, which launches a backfill, only if no other backfill
+	 * is in progress or being launched. The flag taken here is released when the
+	 * launched backfill terminates, or right away if nothing was launched.
+	 */
+	private Mono<BackfillProgress> exclusively(Mono<BackfillProgress> launch) {
+		return Mono.defer(() -> {
+			if (!busy.compareAndSet(false, true)) {
+				return Mono.error(new IllegalStateException("A backfill is already in progress"));
+			}
+			var launched = new AtomicBoolean();
+			return launch.doOnNext(__ -> launched.set(true))
+					.doFinally(signal -> {
+						if (!launched.get()) {
+							busy.set(false);
+						}
+					});
+		});
+	}
+
+	private Mono<BackfillProgress> launch(BackfillProgress progress, BackfillPlan plan) {
+		return Mono.fromCallable(() -> {
+			current = progress;
+			// The backfill outlives the command that started it, so it is subscribed here
+			running = run(progress, plan)
+					.doFinally(signal -> {
+						progress.markDone();
+						busy.set(false);
+					})
+					.subscribe(null, e -> LOGGER.error("Backfill " + progress.getBackfillId() + " stopped unexpectedly", e));
+			return progress;
+		});
+	}
+
+	private Mono<Void> run(BackfillProgress progress, BackfillPlan plan) {
+		var backfillId = progress.getBackfillId();
+		var levelIds = plan.levelIds();
+		var pages = plan.pages();
+		// Levels found on the same page are read back together, right before being dispatched
+		return Flux.range(0, levelIds.length)
+				.filter(i -> i == 0 || pages[i] != pages[i - 1])
+				.concatMap(start -> {
+					var end = start + 1;
+					while (end < levelIds.length && pages[end] == pages[start]) {
+						end++;
+					}
+					return readBack(progress, pages[start], Arrays.copyOfRange(levelIds, start, end));
+				}, 1)
+				.concatMap(level -> Mono.delay(dispatchInterval).then(dispatch(progress, level)), 1)
+				.then(bot.database().useExtension(GDBackfillCheckpointDao.class,
+						dao -> dao.markCompleted(Instant.now(), backfillId)))
+				.doOnSuccess(__ -> LOGGER.info("Backfill {} completed: {}/{} levels dispatched", backfillId,
+						progress.getDispatched(), progress.getTotal()));
+	}
+
+	/**
+	 * Browses the given page again to get the levels with the given IDs. Levels
+	 * rated in the meantime push the others further in the awarded section, so
+	 * the next pages are browsed too if some levels are missing. Levels that
+	 * still can't be found, typically because they were unrated, are counted
+	 * as failed.
+	 */
+	private Flux<GDLevel> readBack(BackfillProgress progress, int page, long[] levelIds) {
+		return Flux.defer(() -> {
+			var wanted = new LongHashSet(levelIds.length);
+			for (var levelId : levelIds) {
+				wanted.add(levelId);
+			}
+			var found = new HashMap<Long, GDLevel>();
+			return Flux.range(page, MAX_PAGE_SHIFT + 1)
+					.concatMap(p -> browse(p)
+							.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Backfill "
+									+ progress.getBackfillId() + " failed to browse awarded page " + p, e))))
+					.doOnNext(levels -> levels.stream()
+							.filter(level -> wanted.contains(level.getId()))
+							.forEach(level -> found.put(level.getId(), level)))
+					.takeUntil(levels -> found.size() == levelIds.length)
+					.thenMany(Flux.fromStream(() -> Arrays.stream(levelIds).boxed()))
+					.flatMapIterable(levelId -> {
+						var level = found.get(levelId);
+						if (level == null) {
+							progress.incrementFailed();
+							LOGGER.warn("Backfill {} could not find level {} in the awarded section anymore",
+									progress.getBackfillId(), levelId);
+							return List.of();
+						}
+						return List.of(level);
+					});
+		});
+	}
+
+	private Mono<Void> dispatch(BackfillProgress progress, GDLevel level) {
+		return Mono.defer(() -> {
+			var backfillId = progress.getBackfillId();
+			try {
+				dispatcher.dispatch(new AwardedLevelAddedEvent(level));
+			} catch (RuntimeException e) {
+				progress.incrementFailed();
+				LOGGER.warn("Backfill " + backfillId + " failed to dispatch level " + level.getId(), e);
+				return Mono.empty();
+			}
+			var count = progress.incrementDispatched();
+			// The level was dispatched, a failed checkpoint must not count it as failed
+			return bot.database().useExtension(GDBackfillCheckpointDao.class,
+							dao -> dao.updateProgress(level.getId(), count, Instant.now(), backfillId))
+					.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Backfill " + backfillId
+							+ " failed to save its progress after dispatching level " + level.getId(), e)));
+		});
+	}
+
+	private Mono<List<GDLevel>> browse(int page) {
+		return requestBudget.acquire(1)
+				.then(gdClient.browseAwardedLevels(LevelSearchFilters.create(), page))
+				.flatMapMany(Flux::fromIterable)
+				.collectList();
+	}
+}
@@ -0,0 +1,105 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.alex1304.jdash.entity.GDLevel;
+
+/**
+ * The levels a backfill is going to dispatch, as found by
+ * {@link BackfillEngine#locate(long, int)}. Only the ID of each level and the
+ * page of the awarded section it was found on are kept, so that thousands of
+ * levels can be planned without holding them all in memory. The levels are
+ * read again page by page when they are dispatched. A few of the levels that
+ * are dispatched first are kept in full to preview the backfill.
+ */
+public final class BackfillPlan {
+
+	private final long[] levelIds;
+	private final int[] pages;
+	private final List<GDLevel> preview;
+
+	private BackfillPlan(long[] levelIds, int[] pages, List<GDLevel> preview) {
+		this.levelIds = levelIds;
+		this.pages = pages;
+		this.preview = preview;
+	}
+
+	/**
+	 * @return the number of levels to dispatch
+	 */
+	public int size() {
+		return levelIds.length;
+	}
+
+	/**
+	 * @return the first levels to be dispatched, from the oldest rate to the most
+	 *         recent one
+	 */
+	public List<GDLevel> getPreview() {
+		return preview;
+	}
+
+	/**
+	 * @return the IDs of the levels to dispatch, from the oldest rate to the most
+	 *         recent one
+	 */
+	long[] levelIds() {
+		return levelIds;
+	}
+
+	/**
+	 * @return the page on which each level of {@link #levelIds()} was found
+	 */
+	int[] pages() {
+		return pages;
+	}
+
+	/**
+	 * Collects the levels of the awarded section in the order they appear, that
+	 * is from the most recent rate to the oldest one.
+	 */
+	static final class Builder {
+
+		private final int previewSize;
+		private final ArrayDeque<GDLevel> preview;
+		private long[] levelIds = new long[64];
+		private int[] pages = new int[64];
+		private int size;
+
+		Builder(int previewSize) {
+			this.previewSize = previewSize;
+			this.preview = new ArrayDeque<>(previewSize);
+		}
+
+		void add(int page, GDLevel level) {
+			if (size == levelIds.length) {
+				levelIds = Arrays.copyOf(levelIds, size * 2);
+				pages = Arrays.copyOf(pages, size * 2);
+			}
+			levelIds[size] = level.getId();
+			pages[size] = page;
+			size++;
+			// The last levels found are the oldest rates, which are dispatched first
+			if (preview.size() == previewSize) {
+				preview.removeFirst();
+			}
+			preview.addLast(level);
+		}
+
+		BackfillPlan build() {
+			var orderedIds = new long[size];
+			var orderedPages = new int[size];
+			for (var i = 0 ; i < size ; i++) {
+				orderedIds[i] = levelIds[size - 1 - i];
+				orderedPages[i] = pages[size - 1 - i];
+			}
+			var orderedPreview = new ArrayList<>(preview);
+			Collections.reverse(orderedPreview);
+			return new BackfillPlan(orderedIds, orderedPages, Collections.unmodifiableList(orderedPreview));
+		}
+	}
+}
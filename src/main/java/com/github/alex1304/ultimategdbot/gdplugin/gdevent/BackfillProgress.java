@@ -0,0 +1,60 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the progress of a backfill of awarded level events.
+ */
+public final class BackfillProgress {
+
+	private final long backfillId;
+	private final int total;
+	private final Instant start = Instant.now();
+	private final AtomicInteger dispatched;
+	private final AtomicInteger failed = new AtomicInteger();
+	private volatile boolean isDone;
+
+	BackfillProgress(long backfillId, int total, int alreadyDispatched) {
+		this.backfillId = backfillId;
+		this.total = total + alreadyDispatched;
+		this.dispatched = new AtomicInteger(alreadyDispatched);
+	}
+
+	int incrementDispatched() {
+		return dispatched.incrementAndGet();
+	}
+
+	void incrementFailed() {
+		failed.incrementAndGet();
+	}
+
+	void markDone() {
+		isDone = true;
+	}
+
+	public long getBackfillId() {
+		return backfillId;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public int getDispatched() {
+		return dispatched.get();
+	}
+
+	public int getFailed() {
+		return failed.get();
+	}
+
+	public boolean isDone() {
+		return isDone;
+	}
+
+	public Duration getElapsed() {
+		return Duration.between(start, Instant.now());
+	}
+}
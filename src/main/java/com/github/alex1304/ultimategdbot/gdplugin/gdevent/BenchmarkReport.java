@@ -0,0 +1,102 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.DryRunBroadcastSink.RecordedRequest;
+
+/**
+ * Results of a benchmark of the broadcast pipeline run against the dry-run
+ * sink. Besides the timings, it contains the number of requests made for each
+ * operation and the payload of the last request recorded for each of them, so
+ * that what would have been sent to Discord can be checked.
+ */
+public final class BenchmarkReport {
+
+	private final int eventCount;
+	private final long messageCount;
+	private final Duration elapsed;
+	private final long[] sortedLatencies;
+	private final long requestCount;
+	private final long rateLimitedCount;
+	private final Map<String, Long> requestCountByOperation;
+	private final Map<String, String> lastPayloadByOperation = new TreeMap<>();
+
+	BenchmarkReport(int eventCount, long messageCount, Duration elapsed, long[] eventLatenciesNanos,
+			long requestCount, long rateLimitedCount, Map<String, Long> requestCountByOperation,
+			List<RecordedRequest> recordedRequests) {
+		this.eventCount = eventCount;
+		this.messageCount = messageCount;
+		this.elapsed = elapsed;
+		this.sortedLatencies = eventLatenciesNanos.clone();
+		Arrays.sort(sortedLatencies);
+		this.requestCount = requestCount;
+		this.rateLimitedCount = rateLimitedCount;
+		this.requestCountByOperation = Map.copyOf(requestCountByOperation);
+		// Recorded requests are in order, so the last one of each operation wins
+		recordedRequests.forEach(request -> lastPayloadByOperation.put(request.operation(),
+				String.valueOf(request.payload())));
+	}
+
+	public int getEventCount() {
+		return eventCount;
+	}
+
+	public long getMessageCount() {
+		return messageCount;
+	}
+
+	public Duration getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * Gets the number of messages sent per second over the whole benchmark.
+	 *
+	 * @return the throughput
+	 */
+	public double getThroughput() {
+		var millis = elapsed.toMillis();
+		return millis == 0 ? 0 : messageCount * 1000.0 / millis;
+	}
+
+	/**
+	 * Gets the time it took to fully broadcast an event, at the given
+	 * percentile.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the latency
+	 */
+	public Duration getLatencyPercentile(double percentile) {
+		if (sortedLatencies.length == 0) {
+			return Duration.ZERO;
+		}
+		var index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+		return Duration.ofNanos(sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, index))]);
+	}
+
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	public long getRateLimitedCount() {
+		return rateLimitedCount;
+	}
+
+	public Map<String, Long> getRequestCountByOperation() {
+		return new TreeMap<>(requestCountByOperation);
+	}
+
+	/**
+	 * Gets the payload of the last request recorded for each operation, as
+	 * text.
+	 *
+	 * @return the payloads by operation name
+	 */
+	public Map<String, String> getLastPayloadByOperation() {
+		return Map.copyOf(lastPayloadByOperation);
+	}
+}
@@ -0,0 +1,54 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the delivery of an event to the subscribed guilds.
+ */
+public final class BroadcastProgress {
+
+	private final String logText;
+	private final int total;
+	private final Instant start = Instant.now();
+	private final AtomicInteger delivered = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+
+	BroadcastProgress(String logText, int total) {
+		this.logText = logText;
+		this.total = total;
+	}
+
+	void incrementDelivered() {
+		delivered.incrementAndGet();
+	}
+
+	void incrementFailed() {
+		failed.incrementAndGet();
+	}
+
+	public String getLogText() {
+		return logText;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public int getDelivered() {
+		return delivered.get();
+	}
+
+	public int getFailed() {
+		return failed.get();
+	}
+
+	public int getProcessed() {
+		return delivered.get() + failed.get();
+	}
+
+	public Duration getElapsed() {
+		return Duration.between(start, Instant.now());
+	}
+}
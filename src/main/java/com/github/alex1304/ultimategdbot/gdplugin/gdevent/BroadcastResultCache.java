@@ -1,29 +1,125 @@
 package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
 
-import static java.util.Objects.requireNonNull;
-
-import java.util.Collections;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDBroadcastResultDao;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
-import discord4j.core.object.entity.Message;
+import reactor.core.publisher.Mono;
 
+/**
+ * Remembers the messages sent for each awarded level, so that they can be
+ * edited when the level is updated. Only the channel and message IDs are kept,
+ * stored as pairs in a flat array of longs. The most recent entries are kept
+ * in memory, and all entries are persisted in database so that they survive a
+ * restart. An entry loaded from database while messages of the same level are
+ * being saved is not kept in memory, as it may miss some of them.
+ */
 class BroadcastResultCache {
-	
-	private Cache<Long, List<Message>> results = Caffeine.newBuilder()
-			.maximumSize(50)
-			.build();
-	
-	void put(long levelId, List<Message> messages) {
-		requireNonNull(messages);
-		results.put(levelId, messages);
+
+	private static final Duration RETENTION = Duration.ofDays(30);
+	private static final long[] EMPTY = new long[0];
+
+	private final BotService bot;
+	private final Cache<Long, long[]> results;
+	private final Map<Long, Integer> pendingWrites = new ConcurrentHashMap<>();
+	private final AtomicLong writeGeneration = new AtomicLong();
+
+	BroadcastResultCache(BotService bot, int maxSize) {
+		this.bot = bot;
+		this.results = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.build();
 	}
-	
-	Optional<List<Message>> get(long levelId) {
-		return Optional.ofNullable(results.getIfPresent(levelId))
-				.map(Collections::unmodifiableList);
+
+	/**
+	 * Adds messages to the ones already sent for the given level.
+	 *
+	 * @param levelId  the level ID
+	 * @param messages the messages that were sent
+	 * @return a Mono completing when the messages are saved in database
+	 */
+	Mono<Void> add(long levelId, List<SentMessage> messages) {
+		if (messages.isEmpty()) {
+			return Mono.empty();
+		}
+		var pairs = new long[messages.size() * 2];
+		var channelIds = new ArrayList<Long>(messages.size());
+		var messageIds = new ArrayList<Long>(messages.size());
+		for (var i = 0 ; i < messages.size() ; i++) {
+			var message = messages.get(i);
+			pairs[i * 2] = message.channelId();
+			pairs[i * 2 + 1] = message.messageId();
+			channelIds.add(pairs[i * 2]);
+			messageIds.add(pairs[i * 2 + 1]);
+		}
+		return Mono.defer(() -> {
+			// Only merge with what is already in memory, a missing entry will be loaded
+			// from database. The write is registered atomically with the merge, so
+			// that a concurrent load can't cache an entry missing these messages.
+			results.asMap().compute(levelId, (k, old) -> {
+				pendingWrites.merge(levelId, 1, Integer::sum);
+				if (old == null) {
+					return null;
+				}
+				var merged = Arrays.copyOf(old, old.length + pairs.length);
+				System.arraycopy(pairs, 0, merged, old.length, pairs.length);
+				return merged;
+			});
+			return bot.database()
+					.useExtension(GDBroadcastResultDao.class,
+							dao -> dao.insertAll(levelId, channelIds, messageIds, Instant.now()))
+					.doFinally(signal -> {
+						pendingWrites.computeIfPresent(levelId, (k, count) -> count == 1 ? null : count - 1);
+						writeGeneration.incrementAndGet();
+					});
+		});
+	}
+
+	/**
+	 * Gets the channel and message IDs of the messages sent for the given level.
+	 *
+	 * @param levelId the level ID
+	 * @return a Mono emitting a flat array where each channel ID is followed by
+	 *         the corresponding message ID, empty if nothing was sent for this
+	 *         level
+	 */
+	Mono<long[]> get(long levelId) {
+		var cached = results.getIfPresent(levelId);
+		if (cached != null) {
+			return cached.length == 0 ? Mono.empty() : Mono.just(cached);
+		}
+		var generation = writeGeneration.get();
+		return bot.database()
+				.withExtension(GDBroadcastResultDao.class, dao -> dao.getAllForLevel(levelId))
+				.map(rows -> {
+					if (rows.isEmpty()) {
+						return EMPTY;
+					}
+					var pairs = new long[rows.size() * 2];
+					for (var i = 0 ; i < rows.size() ; i++) {
+						pairs[i * 2] = rows.get(i).channelId();
+						pairs[i * 2 + 1] = rows.get(i).messageId();
+					}
+					return pairs;
+				})
+				// Don't cache what was read if a write may have happened in the meantime
+				.doOnNext(pairs -> results.asMap().compute(levelId, (k, old) -> old != null ? old
+						: !pendingWrites.containsKey(levelId) && writeGeneration.get() == generation ? pairs : null))
+				.filter(pairs -> pairs.length > 0);
+	}
+
+	Mono<Integer> purge() {
+		return bot.database()
+				.withExtension(GDBroadcastResultDao.class, dao -> dao.deleteAllBefore(Instant.now().minus(RETENTION)));
 	}
 }
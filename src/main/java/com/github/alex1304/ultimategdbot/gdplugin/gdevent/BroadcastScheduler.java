@@ -0,0 +1,355 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Paces the requests made to Discord when broadcasting GD events. Requests are
+ * queued by priority (public posts first, then edits, then DMs) and are only
+ * started when both the global token bucket and the token bucket of the target
+ * channel allow it, so that rate waves don't result in bursts of 429 errors. A
+ * request still waiting in queue after its deadline fails with a
+ * {@link TimeoutException} instead of being sent late. Requests of the same
+ * priority are ordered according to the {@link EventLane} of the event they
+ * belong to, so that time-sensitive events go first.
+ *
+ * <p>
+ * Waiting requests are grouped by channel. Only the channels whose rate limit
+ * allows a request are looked at when draining the queue, the others wait in a
+ * set sorted by the time their rate limit resets, so that each request costs a
+ * logarithmic time to schedule even when thousands of them are queued.
+ * Requests are started and expired outside of the lock.
+ */
+public final class BroadcastScheduler {
+
+	private static final Logger LOGGER = Loggers.getLogger(BroadcastScheduler.class);
+
+	public enum Priority {
+		PUBLIC_POST, EDIT, DM
+	}
+
+	private final TokenBucket globalBucket;
+	private final int channelBurst;
+	private final Duration channelPeriod;
+	private final Map<Priority, Duration> deadlines;
+	private final Map<EventLane, Integer> laneRanks = new EnumMap<>(EventLane.class);
+	private final Cache<Long, TokenBucket> channelBuckets = Caffeine.newBuilder()
+			.expireAfterAccess(Duration.ofMinutes(1))
+			.build();
+	// All the fields below are guarded by the lock on channelQueues
+	private final Map<Long, ChannelQueue> channelQueues = new HashMap<>();
+	// Channels allowed to send now, sorted by their most urgent request
+	private final TreeSet<ChannelQueue> readyChannels = new TreeSet<>(Comparator.comparing(
+			(ChannelQueue channelQueue) -> channelQueue.tasks.first(), ChannelQueue.TASK_ORDER));
+	// Channels whose rate limit is exhausted, sorted by the time it resets
+	private final TreeSet<ChannelQueue> waitingChannels = new TreeSet<>(Comparator
+			.comparingLong((ChannelQueue channelQueue) -> channelQueue.availableAt)
+			.thenComparingLong(channelQueue -> channelQueue.channelId));
+	private final TreeSet<Task<?>> byDeadline = new TreeSet<>(Comparator.<Task<?>>comparingLong(task -> task.deadline)
+			.thenComparingLong(task -> task.sequence));
+	private final Scheduler timer = Schedulers.single();
+	private final AtomicLong sequence = new AtomicLong();
+	private final Map<Priority, AtomicLong> queueDepth = new EnumMap<>(Priority.class);
+	private final Map<Long, AtomicInteger> channelQueueDepth = new ConcurrentHashMap<>();
+	private final AtomicLong dispatchedCount = new AtomicLong();
+	private final AtomicLong expiredCount = new AtomicLong();
+	private final AtomicLong totalWaitMillis = new AtomicLong();
+	private final AtomicLong maxWaitMillis = new AtomicLong();
+	private Disposable scheduledDrain;
+
+	BroadcastScheduler(int globalRatePerSecond, int channelBurst, Duration channelPeriod, Map<Priority, Duration> deadlines,
+			List<EventLane> laneOrder) {
+		this.globalBucket = new TokenBucket(globalRatePerSecond, Duration.ofSeconds(1));
+		this.channelBurst = channelBurst;
+		this.channelPeriod = channelPeriod;
+		this.deadlines = Map.copyOf(deadlines);
+		for (var i = 0 ; i < laneOrder.size() ; i++) {
+			laneRanks.put(laneOrder.get(i), i);
+		}
+		for (var priority : Priority.values()) {
+			queueDepth.put(priority, new AtomicLong());
+		}
+	}
+
+	/**
+	 * Schedules a request targeting the given channel.
+	 *
+	 * @param <T>       the type of result of the request
+	 * @param priority  the priority of the request
+	 * @param channelId the ID of the channel targeted by the request
+	 * @param request   the request to execute
+	 * @return a Mono that executes the request once allowed by the rate limits,
+	 *         and emits its result
+	 */
+	<T> Mono<T> schedule(Priority priority, long channelId, Mono<T> request) {
+		return Mono.create(sink -> {
+			// Requests made outside of a lane, or from a lane missing in the order, go last
+			var laneRank = laneRanks.getOrDefault(sink.currentContext().getOrDefault(EventLane.class, null), laneRanks.size());
+			var task = new Task<>(priority, laneRank, channelId, request, sink, sequence.incrementAndGet(),
+					System.nanoTime() + deadlines.getOrDefault(priority, Duration.ofMinutes(10)).toNanos());
+			synchronized (channelQueues) {
+				enqueue(task);
+				queueDepth.get(priority).incrementAndGet();
+				channelQueueDepth.computeIfAbsent(channelId, k -> new AtomicInteger()).incrementAndGet();
+			}
+			sink.onCancel(() -> {
+				synchronized (channelQueues) {
+					if (remove(task)) {
+						dequeued(task);
+					}
+				}
+				task.cancel();
+			});
+			drain();
+		});
+	}
+
+	public long getQueueDepth(Priority priority) {
+		return queueDepth.get(priority).get();
+	}
+
+	/**
+	 * @param channelId the channel ID
+	 * @return the number of requests targeting the given channel that are
+	 *         waiting in queue
+	 */
+	int getQueueDepth(long channelId) {
+		var depth = channelQueueDepth.get(channelId);
+		return depth == null ? 0 : depth.get();
+	}
+
+	/**
+	 * @param channelId the channel ID
+	 * @return the time until the rate limit of the given channel allows a new
+	 *         request, zero if it allows one now
+	 */
+	Duration timeUntilChannelAvailable(long channelId) {
+		var channelBucket = channelBuckets.getIfPresent(channelId);
+		return channelBucket == null ? Duration.ZERO : channelBucket.timeUntilAvailable();
+	}
+
+	public long getDispatchedCount() {
+		return dispatchedCount.get();
+	}
+
+	public long getExpiredCount() {
+		return expiredCount.get();
+	}
+
+	public Duration getAverageWait() {
+		var count = dispatchedCount.get();
+		return count == 0 ? Duration.ZERO : Duration.ofMillis(totalWaitMillis.get() / count);
+	}
+
+	public Duration getMaxWait() {
+		return Duration.ofMillis(maxWaitMillis.get());
+	}
+
+	private void drain() {
+		var toRun = new ArrayList<Task<?>>();
+		var toExpire = new ArrayList<Task<?>>();
+		synchronized (channelQueues) {
+			var now = System.nanoTime();
+			while (!byDeadline.isEmpty() && now > byDeadline.first().deadline) {
+				var task = byDeadline.first();
+				remove(task);
+				dequeued(task);
+				toExpire.add(task);
+			}
+			while (!waitingChannels.isEmpty() && waitingChannels.first().availableAt <= now) {
+				readyChannels.add(waitingChannels.pollFirst().markReady());
+			}
+			var nextAttempt = Duration.ZERO;
+			while (!readyChannels.isEmpty()) {
+				var globalWait = globalBucket.timeUntilAvailable();
+				if (!globalWait.isZero()) {
+					nextAttempt = globalWait;
+					break;
+				}
+				var channelQueue = readyChannels.pollFirst();
+				var channelBucket = channelBuckets.get(channelQueue.channelId, k -> new TokenBucket(channelBurst, channelPeriod));
+				if (!channelBucket.tryConsume()) {
+					// Other channels may still be available, lower priority requests to them can proceed
+					waitingChannels.add(channelQueue.markWaiting(now + channelBucket.timeUntilAvailable().toNanos()));
+					continue;
+				}
+				globalBucket.tryConsume();
+				var task = channelQueue.tasks.pollFirst();
+				byDeadline.remove(task);
+				dequeued(task);
+				recordWait(Duration.ofNanos(now - task.enqueuedAt));
+				toRun.add(task);
+				if (channelQueue.tasks.isEmpty()) {
+					channelQueues.remove(channelQueue.channelId);
+				} else {
+					readyChannels.add(channelQueue);
+				}
+			}
+			if (!waitingChannels.isEmpty()) {
+				var channelWait = Duration.ofNanos(waitingChannels.first().availableAt - now);
+				if (nextAttempt.isZero() || channelWait.compareTo(nextAttempt) < 0) {
+					nextAttempt = channelWait;
+				}
+			}
+			if (!byDeadline.isEmpty()) {
+				var deadlineWait = Duration.ofNanos(byDeadline.first().deadline - now);
+				if (nextAttempt.isZero() || deadlineWait.compareTo(nextAttempt) < 0) {
+					nextAttempt = deadlineWait;
+				}
+				scheduleDrain(nextAttempt.isZero() ? Duration.ofMillis(10) : nextAttempt);
+			}
+		}
+		toExpire.forEach(task -> {
+			expiredCount.incrementAndGet();
+			task.sink.error(new TimeoutException("Broadcast deadline exceeded"));
+		});
+		toRun.forEach(Task::run);
+	}
+
+	private void enqueue(Task<?> task) {
+		var channelQueue = channelQueues.computeIfAbsent(task.channelId, ChannelQueue::new);
+		// The position in the ready set depends on the first task, it must be updated
+		var wasReady = channelQueue.ready && readyChannels.remove(channelQueue);
+		channelQueue.tasks.add(task);
+		if (wasReady || channelQueue.tasks.size() == 1) {
+			readyChannels.add(channelQueue.markReady());
+		}
+		byDeadline.add(task);
+	}
+
+	private boolean remove(Task<?> task) {
+		var channelQueue = channelQueues.get(task.channelId);
+		if (channelQueue == null || !byDeadline.remove(task)) {
+			return false;
+		}
+		var wasReady = channelQueue.ready && readyChannels.remove(channelQueue);
+		channelQueue.tasks.remove(task);
+		if (channelQueue.tasks.isEmpty()) {
+			waitingChannels.remove(channelQueue);
+			channelQueues.remove(task.channelId);
+		} else if (wasReady) {
+			readyChannels.add(channelQueue);
+		}
+		return true;
+	}
+
+	private void dequeued(Task<?> task) {
+		queueDepth.get(task.priority).decrementAndGet();
+		channelQueueDepth.computeIfPresent(task.channelId, (k, depth) -> depth.decrementAndGet() == 0 ? null : depth);
+	}
+
+	private void scheduleDrain(Duration delay) {
+		if (scheduledDrain != null && !scheduledDrain.isDisposed()) {
+			return;
+		}
+		scheduledDrain = timer.schedule(() -> {
+			synchronized (channelQueues) {
+				scheduledDrain = null;
+			}
+			drain();
+		}, Math.max(1, delay.toMillis()), TimeUnit.MILLISECONDS);
+	}
+
+	private void recordWait(Duration wait) {
+		var millis = wait.toMillis();
+		dispatchedCount.incrementAndGet();
+		totalWaitMillis.addAndGet(millis);
+		maxWaitMillis.accumulateAndGet(millis, Math::max);
+		if (wait.compareTo(Duration.ofSeconds(30)) > 0) {
+			LOGGER.debug("Broadcast request waited {} in queue", wait);
+		}
+	}
+
+	private static class ChannelQueue {
+
+		private static final Comparator<Task<?>> TASK_ORDER = Comparator.<Task<?>, Priority>comparing(task -> task.priority)
+				.thenComparingInt(task -> task.laneRank)
+				.thenComparingLong(task -> task.sequence);
+
+		private final long channelId;
+		private final TreeSet<Task<?>> tasks = new TreeSet<>(TASK_ORDER);
+		private boolean ready;
+		private long availableAt;
+
+		private ChannelQueue(long channelId) {
+			this.channelId = channelId;
+		}
+
+		private ChannelQueue markReady() {
+			ready = true;
+			return this;
+		}
+
+		private ChannelQueue markWaiting(long availableAt) {
+			this.ready = false;
+			this.availableAt = availableAt;
+			return this;
+		}
+	}
+
+	private static class Task<T> {
+
+		private final Priority priority;
+		private final int laneRank;
+		private final long channelId;
+		private final Mono<T> request;
+		private final MonoSink<T> sink;
+		private final long sequence;
+		private final long deadline;
+		private final long enqueuedAt = System.nanoTime();
+		private volatile Disposable running;
+		private volatile boolean cancelled;
+
+		private Task(Priority priority, int laneRank, long channelId, Mono<T> request, MonoSink<T> sink, long sequence,
+				long deadline) {
+			this.priority = priority;
+			this.laneRank = laneRank;
+			this.channelId = channelId;
+			this.request = request;
+			this.sink = sink;
+			this.sequence = sequence;
+			this.deadline = deadline;
+		}
+
+		private void run() {
+			// The task may have been cancelled after it was taken from the queue
+			if (cancelled) {
+				return;
+			}
+			running = request.subscribe(sink::success, sink::error, () -> sink.success());
+			if (cancelled) {
+				running.dispose();
+			}
+		}
+
+		private void cancel() {
+			cancelled = true;
+			var disposable = running;
+			if (disposable != null) {
+				disposable.dispose();
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import discord4j.core.object.entity.User;
+import discord4j.discordjson.json.MessageEditRequest;
+import discord4j.rest.util.MultipartRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Destination of the requests made when broadcasting GD events. The default
+ * implementation sends them to Discord, other implementations may be used to
+ * run the broadcast pipeline without side effects.
+ */
+interface BroadcastSink {
+
+	/**
+	 * Sends a message in the given channel.
+	 *
+	 * @param channelId the ID of the channel
+	 * @param request   the message to send
+	 * @return a Mono emitting the sent message
+	 */
+	Mono<SentMessage> createMessage(long channelId, MultipartRequest request);
+
+	/**
+	 * Edits a message previously sent.
+	 *
+	 * @param channelId the ID of the channel where the message is
+	 * @param messageId the ID of the message
+	 * @param request   the edit to make
+	 * @return a Mono completing when the message is edited
+	 */
+	Mono<Void> editMessage(long channelId, long messageId, MessageEditRequest request);
+
+	/**
+	 * Publishes a message sent in an announcement channel to the channels
+	 * following it.
+	 *
+	 * @param channelId the ID of the announcement channel
+	 * @param messageId the ID of the message
+	 * @return a Mono completing when the message is published
+	 */
+	Mono<Void> crosspost(long channelId, long messageId);
+
+	/**
+	 * Opens the private channel with the given user.
+	 *
+	 * @param user the user
+	 * @return a Mono emitting the ID of the private channel
+	 */
+	Mono<Long> openPrivateChannel(User user);
+}
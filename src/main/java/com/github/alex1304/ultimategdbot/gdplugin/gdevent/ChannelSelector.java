@@ -0,0 +1,59 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import discord4j.rest.entity.RestChannel;
+
+/**
+ * Chooses which of several equivalent channels an event should be posted in.
+ * The channel with the fewest posts waiting in the broadcast scheduler and
+ * crossposts waiting in the crosspost queue is chosen, and ties are broken by
+ * picking the channel whose rate limit resets first. Channels are examined
+ * starting from a rotating offset, so that channels that are equally idle still
+ * get used in turn. This class is lock-free: it only reads the live state of
+ * the scheduler and the crosspost queue.
+ */
+final class ChannelSelector {
+
+	private final List<RestChannel> channels;
+	private final BroadcastScheduler scheduler;
+	private final CrosspostQueue crosspostQueue;
+	private final AtomicInteger offset = new AtomicInteger();
+
+	ChannelSelector(List<RestChannel> channels, BroadcastScheduler scheduler, CrosspostQueue crosspostQueue) {
+		this.channels = List.copyOf(channels);
+		this.scheduler = scheduler;
+		this.crosspostQueue = crosspostQueue;
+	}
+
+	/**
+	 * @return the least loaded channel, or null if there are no channels
+	 */
+	RestChannel select() {
+		var size = channels.size();
+		if (size == 0) {
+			return null;
+		}
+		var start = Math.floorMod(offset.getAndIncrement(), size);
+		RestChannel best = null;
+		var bestLoad = Integer.MAX_VALUE;
+		Duration bestWait = null;
+		for (var i = 0 ; i < size ; i++) {
+			var channel = channels.get((start + i) % size);
+			var channelId = channel.getId().asLong();
+			var load = scheduler.getQueueDepth(channelId) + crosspostQueue.getPendingCount(channelId);
+			if (load > bestLoad) {
+				continue;
+			}
+			var wait = scheduler.timeUntilChannelAvailable(channelId);
+			if (load < bestLoad || wait.compareTo(bestWait) < 0) {
+				best = channel;
+				bestLoad = load;
+				bestWait = wait;
+			}
+		}
+		return best;
+	}
+}
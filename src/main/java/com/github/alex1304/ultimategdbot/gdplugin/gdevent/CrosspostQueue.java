@@ -1,41 +1,234 @@
 package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.github.alex1304.jdashevents.event.GDEvent;
 import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.gdplugin.util.GDEvents;
 
-import discord4j.core.object.entity.Message;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.BroadcastScheduler.Priority;
+
+import discord4j.rest.http.client.ClientException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.MonoProcessor;
 import reactor.util.Logger;
 import reactor.util.Loggers;
+import reactor.util.retry.Retry;
+
+/**
+ * Crossposts messages sent in announcement channels. Messages of the same
+ * channel are crossposted one after the other in the order they were
+ * submitted, and at most a fixed number of channels are processed at the same
+ * time. Rate limited and server errors are retried with a jittered backoff.
+ * When crossposts are delayed, either because they wait in queue or because
+ * the running one keeps being retried, a single warning is sent per channel
+ * instead of one per message. Warnings go through the broadcast scheduler like
+ * any other message sent in event channels.
+ */
+public final class CrosspostQueue {
 
-class CrosspostQueue {
-	
 	private static final Logger LOGGER = Loggers.getLogger(CrosspostQueue.class);
-	
+	private static final Duration WARNING_COOLDOWN = Duration.ofMinutes(5);
+
 	private final BotService bot;
+	private final BroadcastSink sink;
+	private final BroadcastScheduler scheduler;
+	private final int concurrency;
+	private final int maxQueueSize;
+	private final int maxRetries;
+	private final Duration warnDelay;
+	// Insertion ordered so that lanes are served fairly
+	private final Map<Long, Lane> lanes = new LinkedHashMap<>();
+	// Queued and running crossposts by channel, readable without holding the lock
+	private final Map<Long, AtomicInteger> pendingByChannel = new ConcurrentHashMap<>();
+	private int queueSize;
+	private int inFlight;
+	// Only runs while there are crossposts queued or running
+	private Disposable warningTimer;
 
-	CrosspostQueue(BotService bot) {
+	private final AtomicLong completedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong retryCount = new AtomicLong();
+	private final AtomicLong totalWaitMillis = new AtomicLong();
+	private final AtomicLong maxWaitMillis = new AtomicLong();
+
+	CrosspostQueue(BotService bot, BroadcastSink sink, BroadcastScheduler scheduler, int concurrency, int maxQueueSize,
+			int maxRetries, Duration warnDelay) {
 		this.bot = bot;
-		
+		this.sink = sink;
+		this.scheduler = scheduler;
+		this.concurrency = concurrency;
+		this.maxQueueSize = maxQueueSize;
+		this.maxRetries = maxRetries;
+		this.warnDelay = warnDelay;
 	}
-	
-	void submit(Message message, GDEvent event, GDEventProperties<?> eventProps) {
+
+	void submit(SentMessage message, GDEvent event, GDEventProperties<?> eventProps) {
 		var tr = bot.localization();
-		var crosspostCompletion = MonoProcessor.create();
-		var warnDelayed = Mono.first(crosspostCompletion, Mono.delay(Duration.ofSeconds(10))
-				.flatMap(__ -> message.getChannel())
-				.flatMap(channel -> channel.createMessage(":warning: " + tr
-						.translate("GDStrings", "gdevproc_crosspost_delayed"))));
-		var doCrosspost = message.publish().then(Mono.fromRunnable(crosspostCompletion::onComplete));
 		var logText = eventProps.logText(tr, event);
-		Mono.when(doCrosspost, warnDelayed).subscribe(null,
-				t -> log("failed", tr.translate("GDStrings", "gdevproc_crosspost_failed", logText), logText, t),
-				() -> log("success", tr.translate("GDStrings", "gdevproc_crosspost_success", logText), logText, null));
+		synchronized (lanes) {
+			if (queueSize >= maxQueueSize) {
+				droppedCount.incrementAndGet();
+				log("failed", tr.translate("GDStrings", "gdevproc_crosspost_failed", logText), logText,
+						new IllegalStateException("Crosspost queue is full"));
+				return;
+			}
+			queueSize++;
+			pendingByChannel.computeIfAbsent(message.channelId(), k -> new AtomicInteger()).incrementAndGet();
+			lanes.computeIfAbsent(message.channelId(), Lane::new).pending.add(new Job(message, logText));
+			if (warningTimer == null) {
+				warningTimer = Flux.interval(warnDelay, warnDelay)
+						.concatMap(tick -> warnDelayedChannels())
+						.subscribe(null, e -> LOGGER.error("Crosspost delay warnings stopped due to an error", e));
+			}
+		}
+		drain();
+	}
+
+	public int getQueueSize() {
+		synchronized (lanes) {
+			return queueSize;
+		}
+	}
+
+	/**
+	 * @param channelId the channel ID
+	 * @return the number of crossposts queued or running in the given channel
+	 */
+	int getPendingCount(long channelId) {
+		var pending = pendingByChannel.get(channelId);
+		return pending == null ? 0 : pending.get();
+	}
+
+	public long getCompletedCount() {
+		return completedCount.get();
 	}
-	
+
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	public long getRetryCount() {
+		return retryCount.get();
+	}
+
+	public Duration getAverageWait() {
+		var count = completedCount.get() + failedCount.get();
+		return count == 0 ? Duration.ZERO : Duration.ofMillis(totalWaitMillis.get() / count);
+	}
+
+	public Duration getMaxWait() {
+		return Duration.ofMillis(maxWaitMillis.get());
+	}
+
+	private void drain() {
+		synchronized (lanes) {
+			var it = lanes.values().iterator();
+			while (inFlight < concurrency && it.hasNext()) {
+				var lane = it.next();
+				if (lane.running != null) {
+					continue;
+				}
+				var job = lane.pending.poll();
+				if (job == null) {
+					it.remove();
+					continue;
+				}
+				lane.running = job;
+				lane.runningSince = System.nanoTime();
+				inFlight++;
+				queueSize--;
+				// Move the lane to the end so that other channels get served first next time
+				it.remove();
+				lanes.put(lane.channelId, lane);
+				run(lane, job);
+				it = lanes.values().iterator();
+			}
+			if (lanes.isEmpty() && warningTimer != null) {
+				warningTimer.dispose();
+				warningTimer = null;
+			}
+		}
+	}
+
+	private void run(Lane lane, Job job) {
+		var tr = bot.localization();
+		sink.crosspost(job.message.channelId(), job.message.messageId())
+				.retryWhen(Retry.backoff(maxRetries, Duration.ofSeconds(1))
+						.jitter(0.5)
+						.filter(CrosspostQueue::isRetryable)
+						.doBeforeRetry(signal -> retryCount.incrementAndGet()))
+				.doFinally(signal -> {
+					recordWait(Duration.ofNanos(System.nanoTime() - job.submittedAt));
+					synchronized (lanes) {
+						lane.running = null;
+						inFlight--;
+						pendingByChannel.computeIfPresent(lane.channelId,
+								(k, pending) -> pending.decrementAndGet() == 0 ? null : pending);
+					}
+					drain();
+				})
+				.subscribe(null,
+						t -> {
+							failedCount.incrementAndGet();
+							log("failed", tr.translate("GDStrings", "gdevproc_crosspost_failed", job.logText), job.logText, t);
+						},
+						() -> {
+							completedCount.incrementAndGet();
+							log("success", tr.translate("GDStrings", "gdevproc_crosspost_success", job.logText), job.logText, null);
+						});
+	}
+
+	private Mono<Void> warnDelayedChannels() {
+		var tr = bot.localization();
+		var now = System.nanoTime();
+		var toWarn = new ArrayDeque<Long>();
+		synchronized (lanes) {
+			for (var lane : lanes.values()) {
+				var oldest = lane.pending.peek();
+				var isDelayed = (lane.running != null && now - lane.runningSince > warnDelay.toNanos())
+						|| (oldest != null && now - oldest.submittedAt > warnDelay.toNanos());
+				if (isDelayed && now - lane.lastWarning > WARNING_COOLDOWN.toNanos()) {
+					lane.lastWarning = now;
+					toWarn.add(lane.channelId);
+				}
+			}
+		}
+		return Flux.fromIterable(toWarn)
+				.flatMap(channelId -> scheduler.schedule(Priority.PUBLIC_POST, channelId,
+								sink.createMessage(channelId, GDEvents.specToRequest(spec -> spec.setContent(
+										":warning: " + tr.translate("GDStrings", "gdevproc_crosspost_delayed")))))
+						.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Unable to send crosspost delay warning", e))))
+				.then();
+	}
+
+	private void recordWait(Duration wait) {
+		var millis = wait.toMillis();
+		totalWaitMillis.addAndGet(millis);
+		maxWaitMillis.accumulateAndGet(millis, Math::max);
+	}
+
+	private static boolean isRetryable(Throwable t) {
+		if (!(t instanceof ClientException)) {
+			return false;
+		}
+		var code = ((ClientException) t).getStatus().code();
+		return code == 429 || code >= 500;
+	}
+
 	void log(String emoji, String message, String eventString, Throwable t) {
 		var throwableSummary = t == null ? "" : "\n`" + t + "`";
 		bot.emoji().get(emoji)
@@ -49,4 +242,29 @@ class CrosspostQueue {
 				}))
 				.subscribe();
 	}
+
+	private static class Lane {
+
+		private final long channelId;
+		private final Queue<Job> pending = new ArrayDeque<>();
+		private Job running;
+		private long runningSince;
+		private long lastWarning = System.nanoTime() - WARNING_COOLDOWN.toNanos();
+
+		private Lane(long channelId) {
+			this.channelId = channelId;
+		}
+	}
+
+	private static class Job {
+
+		private final SentMessage message;
+		private final String logText;
+		private final long submittedAt = System.nanoTime();
+
+		private Job(SentMessage message, String logText) {
+			this.message = message;
+			this.logText = logText;
+		}
+	}
 }
@@ -0,0 +1,165 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import discord4j.core.object.entity.User;
+import discord4j.discordjson.json.MessageEditRequest;
+import discord4j.rest.util.MultipartRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stands in for Discord when broadcasting GD events, so that the broadcast
+ * pipeline can be benchmarked locally. No request leaves the bot: each one
+ * completes after a simulated latency, and a configurable ratio of them are
+ * treated as rate limited, which delays them further like Discord4J does when
+ * it receives a 429 response. The most recent requests are recorded along with
+ * their payload and latency.
+ */
+class DryRunBroadcastSink implements BroadcastSink {
+
+	private static final int MAX_RECORDED = 1000;
+
+	private final Duration latency;
+	private final Duration latencyJitter;
+	private final double rateLimitRatio;
+	private final Duration retryAfter;
+	private final AtomicLong idSequence = new AtomicLong();
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong rateLimitedCount = new AtomicLong();
+	private final Map<String, AtomicLong> requestCountByOperation = new ConcurrentHashMap<>();
+	private final Deque<RecordedRequest> recorded = new ArrayDeque<>();
+
+	DryRunBroadcastSink(Duration latency, Duration latencyJitter, double rateLimitRatio, Duration retryAfter) {
+		this.latency = latency;
+		this.latencyJitter = latencyJitter;
+		this.rateLimitRatio = rateLimitRatio;
+		this.retryAfter = retryAfter;
+	}
+
+	@Override
+	public Mono<SentMessage> createMessage(long channelId, MultipartRequest request) {
+		return simulate("createMessage", channelId, request.getCreateRequest(),
+				start -> new SentMessage(channelId, idSequence.incrementAndGet()));
+	}
+
+	@Override
+	public Mono<Void> editMessage(long channelId, long messageId, MessageEditRequest request) {
+		return simulate("editMessage", channelId, request, start -> start).then();
+	}
+
+	@Override
+	public Mono<Void> crosspost(long channelId, long messageId) {
+		return simulate("crosspost", channelId, messageId, start -> start).then();
+	}
+
+	@Override
+	public Mono<Long> openPrivateChannel(User user) {
+		return simulate("openPrivateChannel", 0, user.getId().asLong(), start -> user.getId().asLong());
+	}
+
+	long getRequestCount() {
+		return requestCount.get();
+	}
+
+	long getRateLimitedCount() {
+		return rateLimitedCount.get();
+	}
+
+	/**
+	 * @param operation the name of the operation, such as "createMessage"
+	 * @return the number of requests made for the given operation
+	 */
+	long getRequestCount(String operation) {
+		var count = requestCountByOperation.get(operation);
+		return count == null ? 0 : count.get();
+	}
+
+	Map<String, Long> getRequestCountByOperation() {
+		var counts = new TreeMap<String, Long>();
+		requestCountByOperation.forEach((operation, count) -> counts.put(operation, count.get()));
+		return counts;
+	}
+
+	List<RecordedRequest> getRecordedRequests() {
+		synchronized (recorded) {
+			return List.copyOf(recorded);
+		}
+	}
+
+	void reset() {
+		requestCount.set(0);
+		rateLimitedCount.set(0);
+		requestCountByOperation.clear();
+		synchronized (recorded) {
+			recorded.clear();
+		}
+	}
+
+	private <T> Mono<T> simulate(String operation, long channelId, Object payload, LongFunction<T> result) {
+		return Mono.defer(() -> {
+			var random = ThreadLocalRandom.current();
+			var delay = latency.toMillis() + (latencyJitter.isZero() ? 0 : random.nextLong(latencyJitter.toMillis() + 1));
+			if (random.nextDouble() < rateLimitRatio) {
+				rateLimitedCount.incrementAndGet();
+				delay += retryAfter.toMillis();
+			}
+			var start = System.nanoTime();
+			return Mono.delay(Duration.ofMillis(delay))
+					.map(__ -> {
+						requestCount.incrementAndGet();
+						requestCountByOperation.computeIfAbsent(operation, k -> new AtomicLong()).incrementAndGet();
+						record(new RecordedRequest(operation, channelId, payload, Duration.ofNanos(System.nanoTime() - start)));
+						return result.apply(start);
+					});
+		});
+	}
+
+	private void record(RecordedRequest request) {
+		synchronized (recorded) {
+			if (recorded.size() >= MAX_RECORDED) {
+				recorded.removeFirst();
+			}
+			recorded.addLast(request);
+		}
+	}
+
+	static class RecordedRequest {
+
+		private final String operation;
+		private final long channelId;
+		private final Object payload;
+		private final Duration latency;
+
+		private RecordedRequest(String operation, long channelId, Object payload, Duration latency) {
+			this.operation = operation;
+			this.channelId = channelId;
+			this.payload = payload;
+			this.latency = latency;
+		}
+
+		String operation() {
+			return operation;
+		}
+
+		long channelId() {
+			return channelId;
+		}
+
+		Object payload() {
+			return payload;
+		}
+
+		Duration latency() {
+			return latency;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+
+import com.github.alex1304.jdash.entity.GDLevel;
+import com.github.alex1304.jdashevents.event.AwardedLevelAddedEvent;
+import com.github.alex1304.jdashevents.event.AwardedLevelUpdatedEvent;
+import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.alex1304.ultimategdbot.gdplugin.util.LongHashSet;
+
+/**
+ * Suppresses events that were already dispatched recently. Each event is
+ * reduced to a 64-bit key made of its type, the ID of the level or user it is
+ * about and a hash of the relevant state, so that a level updated twice to
+ * different ratings is not considered a duplicate. Keys are stored in a ring of
+ * time buckets: a whole bucket is dropped at once when it gets older than the
+ * window, which keeps memory bounded without tracking the age of each key.
+ */
+class EventDeduplicator {
+
+	private static final int BUCKET_COUNT = 6;
+	// System.nanoTime() may be negative, so no epoch value can be used as "unused"
+	private static final long NO_EPOCH = Long.MIN_VALUE;
+
+	private final long bucketNanos;
+	private final LongHashSet[] buckets = new LongHashSet[BUCKET_COUNT];
+	private final long[] bucketEpochs = new long[BUCKET_COUNT];
+	private long suppressedCount;
+
+	/**
+	 * @param window the minimum duration during which a duplicate is
+	 *               suppressed. Keys may be kept up to one bucket longer
+	 */
+	EventDeduplicator(Duration window) {
+		this.bucketNanos = Math.max(1, window.toNanos() / (BUCKET_COUNT - 1));
+		for (var i = 0 ; i < BUCKET_COUNT ; i++) {
+			buckets[i] = new LongHashSet();
+			bucketEpochs[i] = NO_EPOCH;
+		}
+	}
+
+	/**
+	 * Checks whether the event was not dispatched within the window, and
+	 * remembers it if so.
+	 *
+	 * @param event the event to check
+	 * @return true if the event is new, false if it is a duplicate
+	 */
+	synchronized boolean isNew(GDEvent event) {
+		var type = GDEventJournal.typeOf(event);
+		if (type == null) {
+			return true;
+		}
+		var key = keyOf(type, event);
+		var epoch = Math.floorDiv(System.nanoTime(), bucketNanos);
+		for (var i = 0 ; i < BUCKET_COUNT ; i++) {
+			if (bucketEpochs[i] != NO_EPOCH && epoch - bucketEpochs[i] < BUCKET_COUNT && buckets[i].contains(key)) {
+				suppressedCount++;
+				return false;
+			}
+		}
+		var current = (int) Math.floorMod(epoch, (long) BUCKET_COUNT);
+		if (bucketEpochs[current] != epoch) {
+			buckets[current].clear();
+			bucketEpochs[current] = epoch;
+		}
+		buckets[current].add(key);
+		return true;
+	}
+
+	synchronized long getSuppressedCount() {
+		return suppressedCount;
+	}
+
+	private static long keyOf(String type, GDEvent event) {
+		var key = mix(type.hashCode());
+		key = mix(key ^ GDEventJournal.entityIdOf(event));
+		if (event instanceof AwardedLevelAddedEvent) {
+			key = mix(key ^ stateOf(((AwardedLevelAddedEvent) event).getAddedLevel()));
+		} else if (event instanceof AwardedLevelUpdatedEvent) {
+			var update = (AwardedLevelUpdatedEvent) event;
+			key = mix(key ^ stateOf(update.getOldLevel()));
+			key = mix(key ^ stateOf(update.getNewLevel()));
+		}
+		return key;
+	}
+
+	private static long stateOf(GDLevel level) {
+		var state = (long) level.getStars();
+		state = state * 31 + level.getFeaturedScore();
+		state = state * 31 + (level.isEpic() ? 1 : 0);
+		state = state * 31 + (level.hasCoinsVerified() ? 1 : 0);
+		state = state * 31 + level.getDifficulty().ordinal();
+		state = state * 31 + level.getDemonDifficulty().ordinal();
+		return state;
+	}
+
+	// Finalizer of MurmurHash3, spreads the bits so that keys combine well
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
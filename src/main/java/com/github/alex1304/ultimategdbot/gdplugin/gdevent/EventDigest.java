@@ -0,0 +1,92 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.github.alex1304.jdashevents.event.GDEvent;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Collects events arriving within a short window so that they can be announced
+ * together in a single message. A batch is published when its window expires
+ * or when it reaches the maximum size, whichever comes first.
+ */
+class EventDigest {
+
+	private final Duration window;
+	private final int maxSize;
+	private final Map<Object, Batch> openBatches = new HashMap<>();
+
+	EventDigest(Duration window, int maxSize) {
+		this.window = window;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Adds an event to the open batch for the given key, opening a new one if
+	 * needed.
+	 *
+	 * @param <T>       the type of result of the publication
+	 * @param key       the key identifying the batch, events with different keys
+	 *                  are never published together
+	 * @param event     the event to add
+	 * @param publisher the function publishing a batch of events. If several
+	 *                  events of the same batch were submitted with different
+	 *                  publishers, the one of the first event is used
+	 * @return a Mono emitting the result of the publication of the batch
+	 */
+	@SuppressWarnings("unchecked")
+	<T> Mono<T> submit(Object key, GDEvent event, Function<List<GDEvent>, Mono<T>> publisher) {
+		Batch batch;
+		var isFull = false;
+		synchronized (openBatches) {
+			batch = openBatches.get(key);
+			if (batch == null) {
+				var newBatch = new Batch(publisher);
+				openBatches.put(key, newBatch);
+				Mono.delay(window).subscribe(__ -> flush(key, newBatch));
+				batch = newBatch;
+			}
+			batch.events.add(event);
+			if (batch.events.size() >= maxSize) {
+				openBatches.remove(key);
+				isFull = true;
+			}
+		}
+		if (isFull) {
+			flush(key, batch);
+		}
+		return (Mono<T>) batch.result;
+	}
+
+	private void flush(Object key, Batch batch) {
+		List<GDEvent> events;
+		synchronized (openBatches) {
+			if (batch.isFlushed) {
+				return;
+			}
+			batch.isFlushed = true;
+			openBatches.remove(key, batch);
+			events = List.copyOf(batch.events);
+		}
+		batch.publisher.apply(events).subscribe(batch.result);
+	}
+
+	private static class Batch {
+
+		private final Function<List<GDEvent>, ? extends Mono<?>> publisher;
+		private final List<GDEvent> events = new ArrayList<>();
+		private final MonoProcessor<Object> result = MonoProcessor.create();
+		private boolean isFlushed;
+
+		private Batch(Function<List<GDEvent>, ? extends Mono<?>> publisher) {
+			this.publisher = publisher;
+		}
+	}
+}
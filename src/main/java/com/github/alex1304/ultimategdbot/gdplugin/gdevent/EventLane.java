@@ -0,0 +1,43 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.alex1304.jdashevents.event.TimelyLevelChangedEvent;
+
+/**
+ * Groups GD events by class so that each group is processed independently of
+ * the others, with its own concurrency and queue. This prevents a burst of
+ * events of one class from delaying the events of another class.
+ */
+enum EventLane {
+	TIMELY(2, 20), AWARDED(4, 500), MODERATOR(1, 100);
+
+	private final int defaultConcurrency;
+	private final int defaultQueueSize;
+
+	private EventLane(int defaultConcurrency, int defaultQueueSize) {
+		this.defaultConcurrency = defaultConcurrency;
+		this.defaultQueueSize = defaultQueueSize;
+	}
+
+	static EventLane of(GDEvent event) {
+		if (event instanceof TimelyLevelChangedEvent) {
+			return TIMELY;
+		}
+		if (event instanceof UserEvent) {
+			return MODERATOR;
+		}
+		return AWARDED;
+	}
+
+	int defaultConcurrency() {
+		return defaultConcurrency;
+	}
+
+	int defaultQueueSize() {
+		return defaultQueueSize;
+	}
+
+	String configName() {
+		return name().toLowerCase();
+	}
+}
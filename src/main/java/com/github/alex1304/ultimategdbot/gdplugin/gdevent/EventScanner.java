@@ -0,0 +1,28 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import com.github.alex1304.jdash.client.AuthenticatedGDClient;
+import com.github.alex1304.jdashevents.event.GDEvent;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Detects changes on Geometry Dash servers between two consecutive calls.
+ */
+interface EventScanner {
+	
+	/**
+	 * Gets a short name for this scanner, used in logs and status messages.
+	 * 
+	 * @return the name
+	 */
+	String name();
+	
+	/**
+	 * Makes the requests to GD servers and compares the results with the ones
+	 * obtained during the previous scan.
+	 * 
+	 * @param gdClient the client to use to make requests
+	 * @return a Flux emitting the events corresponding to the detected changes
+	 */
+	Flux<GDEvent> scan(AuthenticatedGDClient gdClient);
+}
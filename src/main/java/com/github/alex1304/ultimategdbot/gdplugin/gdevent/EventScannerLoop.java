@@ -0,0 +1,262 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.alex1304.jdash.client.AuthenticatedGDClient;
+import com.github.alex1304.jdash.cooldown.CooldownException;
+import com.github.alex1304.jdashevents.GDEventDispatcher;
+import com.github.alex1304.jdashevents.event.GDEvent;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Periodically runs the event scanners and dispatches the events they detect.
+ * The interval between two scans adapts to the activity: it drops to the
+ * minimum as soon as a change is detected, and grows exponentially up to the
+ * maximum while nothing changes. It never goes below the floor required to
+ * stay within the share of the GD request budget allocated to scanning.
+ * 
+ * <p>
+ * A scanner that does not complete within the scan deadline is cancelled, so
+ * that a hanging GD server doesn't block the loop, and is run again on the next
+ * iteration. The outcome and duration of each scanner are tracked in a
+ * {@link ScannerHealth}. In addition, a watchdog restarts the loop if no
+ * iteration completed for much longer than expected.
+ *
+ * <p>
+ * Events detected again shortly after being dispatched, for example when GD
+ * servers briefly serve a stale page, are suppressed by an
+ * {@link EventDeduplicator}. Only the events detected by the scanners go
+ * through it, so that events dispatched manually or by a backfill are always
+ * processed.
+ */
+public final class EventScannerLoop {
+
+	private static final Logger LOGGER = Loggers.getLogger(EventScannerLoop.class);
+
+	private final AuthenticatedGDClient gdClient;
+	private final GDEventDispatcher dispatcher;
+	private final List<EventScanner> scanners;
+	private final Duration minInterval;
+	private final Duration maxInterval;
+	private final double backoffFactor;
+	private final RequestBudget requestBudget;
+	private final Duration budgetFloor;
+	private final Duration scanDeadline;
+	private final EventDeduplicator deduplicator;
+	private final Map<String, ScannerHealth> health = new LinkedHashMap<>();
+
+	private final AtomicLong scanCount = new AtomicLong();
+	private final AtomicLong totalChangeCount = new AtomicLong();
+	private volatile Duration currentInterval;
+	private volatile Duration cooldownDelay = Duration.ZERO;
+	private volatile long lastChangeCount;
+	private volatile Duration lastScanDuration = Duration.ZERO;
+	private volatile Instant lastIterationEnd;
+	private volatile long watchdogRestartCount;
+	private Disposable disposable;
+	private Disposable watchdog;
+
+	EventScannerLoop(AuthenticatedGDClient gdClient, GDEventDispatcher dispatcher, List<EventScanner> scanners,
+			Duration initialInterval, Duration minInterval, Duration maxInterval, double backoffFactor,
+			RequestBudget requestBudget, Duration scanDeadline, @Nullable EventDeduplicator deduplicator) {
+		if (minInterval.compareTo(maxInterval) > 0) {
+			throw new IllegalArgumentException("minInterval > maxInterval");
+		}
+		if (backoffFactor < 1) {
+			throw new IllegalArgumentException("backoffFactor < 1");
+		}
+		this.gdClient = gdClient;
+		this.dispatcher = dispatcher;
+		this.scanners = List.copyOf(scanners);
+		this.minInterval = minInterval;
+		this.maxInterval = maxInterval;
+		this.backoffFactor = backoffFactor;
+		this.requestBudget = requestBudget;
+		this.budgetFloor = requestBudget.intervalFor(this.scanners.size());
+		this.currentInterval = clamp(initialInterval);
+		this.scanDeadline = scanDeadline;
+		this.deduplicator = deduplicator;
+		this.scanners.forEach(scanner -> health.put(scanner.name(), new ScannerHealth(scanner.name())));
+	}
+
+	public synchronized void start() {
+		if (isStarted()) {
+			return;
+		}
+		lastIterationEnd = Instant.now();
+		disposable = Mono.defer(this::scanOnce)
+				.then(Mono.defer(() -> Mono.delay(currentInterval)))
+				.doOnSuccess(__ -> lastIterationEnd = Instant.now())
+				.repeat()
+				.subscribe(null, e -> LOGGER.error("GD event loop terminated with an error", e));
+		watchdog = Flux.interval(scanDeadline)
+				.filter(tick -> isStalled())
+				.subscribe(tick -> restartStalled());
+	}
+
+	public synchronized void stop() {
+		if (!isStarted()) {
+			return;
+		}
+		disposable.dispose();
+		disposable = null;
+		watchdog.dispose();
+		watchdog = null;
+	}
+
+	public synchronized boolean isStarted() {
+		return disposable != null && !disposable.isDisposed();
+	}
+
+	public Duration getCurrentInterval() {
+		return currentInterval;
+	}
+
+	public Duration getMinInterval() {
+		return minInterval.compareTo(budgetFloor) < 0 ? budgetFloor : minInterval;
+	}
+
+	public Duration getMaxInterval() {
+		return maxInterval;
+	}
+
+	public long getScanCount() {
+		return scanCount.get();
+	}
+
+	public long getLastChangeCount() {
+		return lastChangeCount;
+	}
+
+	public long getTotalChangeCount() {
+		return totalChangeCount.get();
+	}
+
+	public Duration getLastScanDuration() {
+		return lastScanDuration;
+	}
+
+	public Duration getScanDeadline() {
+		return scanDeadline;
+	}
+
+	public long getWatchdogRestartCount() {
+		return watchdogRestartCount;
+	}
+
+	public List<ScannerHealth> getScannerHealth() {
+		return List.copyOf(health.values());
+	}
+
+	private Mono<Void> scanOnce() {
+		cooldownDelay = Duration.ZERO;
+		var start = System.nanoTime();
+		return Flux.fromIterable(scanners)
+				.flatMap(scanner -> requestBudget.acquire(1)
+						.then(Mono.defer(() -> {
+							var scannerStart = System.nanoTime();
+							var scannerHealth = health.get(scanner.name());
+							// Events are only dispatched once the scanner completes, so that a
+							// scan cancelled by the deadline doesn't dispatch partial results
+							return scanner.scan(gdClient)
+									.collectList()
+									.timeout(scanDeadline)
+									.doOnNext(__ -> scannerHealth.record(ScannerHealth.Outcome.SUCCESS,
+											Duration.ofNanos(System.nanoTime() - scannerStart), null))
+									.onErrorResume(e -> Mono.fromRunnable(() -> onScanError(scanner, scannerHealth,
+											Duration.ofNanos(System.nanoTime() - scannerStart), e)));
+						}))
+						.flatMapIterable(events -> events))
+				// Duplicates still count as activity when adapting the interval
+				.doOnNext(event -> {
+					if (isNotDuplicate(event)) {
+						dispatcher.dispatch(event);
+					}
+				})
+				.count()
+				.doOnNext(this::adaptInterval)
+				.doOnNext(__ -> lastScanDuration = Duration.ofNanos(System.nanoTime() - start))
+				.then();
+	}
+
+	private boolean isNotDuplicate(GDEvent event) {
+		if (deduplicator == null || deduplicator.isNew(event)) {
+			return true;
+		}
+		LOGGER.info("Suppressed duplicate GD event {} ({} suppressed so far)", event, deduplicator.getSuppressedCount());
+		return false;
+	}
+
+	private boolean isStalled() {
+		var lastEnd = lastIterationEnd;
+		// An iteration lasts at most the deadline of the scanners plus the interval,
+		// leave some margin for the time spent waiting for the request budget
+		var expected = scanDeadline.multipliedBy(2).plus(maxInterval).plus(cooldownDelay);
+		return lastEnd != null && Duration.between(lastEnd, Instant.now()).compareTo(expected) > 0;
+	}
+
+	private synchronized void restartStalled() {
+		if (!isStarted() || !isStalled()) {
+			return;
+		}
+		LOGGER.warn("GD event loop has not completed an iteration since {}, restarting it", lastIterationEnd);
+		watchdogRestartCount++;
+		stop();
+		start();
+	}
+
+	private void onScanError(EventScanner scanner, ScannerHealth scannerHealth, Duration duration, Throwable e) {
+		if (e instanceof TimeoutException) {
+			scannerHealth.record(ScannerHealth.Outcome.TIMEOUT, duration, e);
+			LOGGER.warn("Scanner {} did not complete within {}, it will be retried on next iteration",
+					scanner.name(), scanDeadline);
+			return;
+		}
+		if (e instanceof CooldownException) {
+			scannerHealth.record(ScannerHealth.Outcome.COOLDOWN, duration, e);
+			var retryAfter = ((CooldownException) e).getRetryAfter();
+			if (retryAfter.compareTo(cooldownDelay) > 0) {
+				cooldownDelay = retryAfter;
+			}
+			LOGGER.warn("GD request budget exhausted while running scanner {}, retrying in {}", scanner.name(), retryAfter);
+			return;
+		}
+		scannerHealth.record(ScannerHealth.Outcome.ERROR, duration, e);
+		LOGGER.error("Error while running scanner " + scanner.name(), e);
+	}
+
+	private void adaptInterval(long changeCount) {
+		scanCount.incrementAndGet();
+		totalChangeCount.addAndGet(changeCount);
+		lastChangeCount = changeCount;
+		var next = changeCount > 0 ? minInterval
+				: Duration.ofMillis((long) (currentInterval.toMillis() * backoffFactor));
+		next = clamp(next);
+		if (next.compareTo(cooldownDelay) < 0) {
+			next = cooldownDelay;
+		}
+		if (!next.equals(currentInterval)) {
+			LOGGER.debug("GD event loop interval changed from {} to {}", currentInterval, next);
+		}
+		currentInterval = next;
+	}
+
+	private Duration clamp(Duration interval) {
+		if (interval.compareTo(maxInterval) > 0) {
+			interval = maxInterval;
+		}
+		return interval.compareTo(getMinInterval()) < 0 ? getMinInterval() : interval;
+	}
+}
@@ -0,0 +1,333 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import static java.util.stream.Collectors.toList;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.alex1304.jdash.client.AuthenticatedGDClient;
+import com.github.alex1304.jdash.entity.GDTimelyLevel.TimelyType;
+import com.github.alex1304.jdash.exception.MissingAccessException;
+import com.github.alex1304.jdashevents.event.AwardedLevelAddedEvent;
+import com.github.alex1304.jdashevents.event.AwardedLevelRemovedEvent;
+import com.github.alex1304.jdashevents.event.AwardedLevelUpdatedEvent;
+import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.alex1304.jdashevents.event.TimelyLevelChangedEvent;
+import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDEventJournalDao;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDEventJournalData;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Keeps track in database of the events that have been dispatched and of the
+ * targets they have been delivered to, so that broadcasts interrupted by a
+ * restart can be resumed. The channels of subscribed guilds an event was posted
+ * in are checkpointed in batches during the broadcast, so that resuming it only
+ * posts in the channels that didn't get the message yet.
+ */
+class GDEventJournal {
+
+	private static final Logger LOGGER = Loggers.getLogger(GDEventJournal.class);
+	private static final Duration RETENTION = Duration.ofDays(7);
+
+	enum Target {
+		/** The global announcement channel of the event */
+		GLOBAL,
+		/** The global channel and the channels of all subscribed guilds */
+		CHANNEL,
+		DM
+	}
+
+	private final BotService bot;
+	private final AuthenticatedGDClient gdClient;
+	private final Duration replayInterval;
+	private final Duration replayMaxAge;
+	private final int checkpointBatchSize;
+	// Weak keys compare by identity, which is what we want for events
+	private final Cache<GDEvent, Entry> entries = Caffeine.newBuilder().weakKeys().build();
+
+	GDEventJournal(BotService bot, AuthenticatedGDClient gdClient, Duration replayInterval, Duration replayMaxAge,
+			int checkpointBatchSize) {
+		this.bot = bot;
+		this.gdClient = gdClient;
+		this.replayInterval = replayInterval;
+		this.replayMaxAge = replayMaxAge;
+		this.checkpointBatchSize = checkpointBatchSize;
+	}
+
+	/**
+	 * Saves the given events in the journal using a single batch insert. Events
+	 * that can't be journaled are emitted as is.
+	 *
+	 * @param events the events to save
+	 * @return a Flux emitting the given events once they are saved
+	 */
+	Flux<GDEvent> record(List<GDEvent> events) {
+		var journaled = events.stream().filter(event -> typeOf(event) != null).collect(toList());
+		if (journaled.isEmpty()) {
+			return Flux.fromIterable(events);
+		}
+		var types = journaled.stream().map(GDEventJournal::typeOf).collect(toList());
+		var entityIds = journaled.stream().map(GDEventJournal::entityIdOf).collect(toList());
+		return bot.database()
+				.withExtension(GDEventJournalDao.class, dao -> dao.insertAll(types, entityIds, Instant.now()))
+				.doOnNext(ids -> {
+					for (var i = 0 ; i < ids.size() ; i++) {
+						entries.put(journaled.get(i), new Entry(ids.get(i), false, false, false, Set.of()));
+					}
+				})
+				.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Failed to save GD events in journal", e)))
+				.thenMany(Flux.fromIterable(events));
+	}
+
+	boolean isDelivered(GDEvent event, Target target) {
+		var entry = entries.getIfPresent(event);
+		return entry != null && entry.isDelivered(target);
+	}
+
+	Mono<Void> markDelivered(GDEvent event, Target target) {
+		return Mono.defer(() -> {
+			var entry = entries.getIfPresent(event);
+			if (entry == null || entry.isDelivered(target)) {
+				return Mono.empty();
+			}
+			entry.setDelivered(target);
+			return bot.database()
+					.useExtension(GDEventJournalDao.class, dao -> {
+						switch (target) {
+							case GLOBAL:
+								dao.markGlobalDelivered(entry.eventId);
+								break;
+							case CHANNEL:
+								dao.markChannelDelivered(entry.eventId);
+								// The checkpoints are only needed until the broadcast is complete
+								dao.deleteDeliveries(entry.eventId);
+								break;
+							default:
+								dao.markDmDelivered(entry.eventId);
+						}
+					})
+					.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Failed to update GD event journal", e)));
+		});
+	}
+
+	/**
+	 * Checks whether the event has already been posted in the given guild channel
+	 * by an earlier, interrupted broadcast.
+	 *
+	 * @param event     the event
+	 * @param channelId the ID of the channel
+	 * @return true if the channel already got the event
+	 */
+	boolean isDeliveredTo(GDEvent event, long channelId) {
+		var entry = entries.getIfPresent(event);
+		return entry != null && entry.deliveredChannels.contains(channelId);
+	}
+
+	/**
+	 * Saves the channels of the given messages as delivered for the event, in
+	 * batches. If the broadcast is interrupted, at most the messages of the last
+	 * batch are sent again when it is resumed.
+	 *
+	 * @param event    the event being broadcast
+	 * @param messages the messages sent for the event
+	 * @return a Flux emitting the given messages once they are checkpointed
+	 */
+	Flux<SentMessage> checkpoint(GDEvent event, Flux<SentMessage> messages) {
+		return Flux.defer(() -> {
+			var entry = entries.getIfPresent(event);
+			if (entry == null) {
+				return messages;
+			}
+			return messages.bufferTimeout(checkpointBatchSize, Duration.ofSeconds(1))
+					.concatMap(batch -> {
+						var channelIds = batch.stream().map(SentMessage::channelId).collect(toList());
+						entry.deliveredChannels.addAll(channelIds);
+						return bot.database()
+								.useExtension(GDEventJournalDao.class, dao -> dao.insertDeliveries(entry.eventId, channelIds))
+								.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Failed to checkpoint GD event broadcast", e)))
+								.thenMany(Flux.fromIterable(batch));
+					});
+		});
+	}
+
+	/**
+	 * Restores the events of the journal that haven't been delivered to all
+	 * targets yet. Events are emitted one by one at a fixed interval so that a
+	 * long backlog does not flood Discord.
+	 *
+	 * @return a Flux emitting the restored events
+	 */
+	Flux<GDEvent> replayUndelivered() {
+		return bot.database()
+				.withExtension(GDEventJournalDao.class, dao -> dao.getUndeliveredSince(Instant.now().minus(replayMaxAge)))
+				.flatMapMany(Flux::fromIterable)
+				.delayElements(replayInterval)
+				.concatMap(data -> restore(data)
+						.flatMap(event -> loadDeliveredChannels(data)
+								.doOnNext(channelIds -> entries.put(event, new Entry(data.eventId(), data.isGlobalDelivered(),
+										data.isChannelDelivered(), data.isDmDelivered(), channelIds)))
+								.thenReturn(event))
+						.doOnNext(event -> LOGGER.info("Resuming broadcast of {} #{}", data.eventType(), data.entityId()))
+						// The event no longer exists (for example the Daily level has changed
+						// since), so it is given up instead of being retried on every startup
+						.switchIfEmpty(Mono.defer(() -> giveUp(data)).then(Mono.empty()))
+						.onErrorResume(MissingAccessException.class, e -> giveUp(data).then(Mono.empty()))
+						.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Unable to resume broadcast of "
+								+ data.eventType() + " #" + data.entityId(), e))))
+				.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Failed to read GD event journal", e)));
+	}
+
+	Mono<Void> purge() {
+		return bot.database()
+				.withExtension(GDEventJournalDao.class, dao -> dao.deleteAllBefore(Instant.now().minus(RETENTION))
+						+ dao.deleteOrphanDeliveries())
+				.doOnNext(count -> LOGGER.debug("Purged {} entries from the GD event journal", count))
+				.then();
+	}
+
+	private Mono<Set<Long>> loadDeliveredChannels(GDEventJournalData data) {
+		if (data.isChannelDelivered()) {
+			return Mono.just(Set.of());
+		}
+		return bot.database()
+				.withExtension(GDEventJournalDao.class, dao -> dao.getDeliveredChannels(data.eventId()))
+				.map(Set::copyOf);
+	}
+
+	private Mono<Void> giveUp(GDEventJournalData data) {
+		return bot.database()
+				.useExtension(GDEventJournalDao.class, dao -> {
+					dao.markAllDelivered(data.eventId());
+					dao.deleteDeliveries(data.eventId());
+				})
+				.doOnSuccess(__ -> LOGGER.info("Gave up broadcast of {} #{}, it can no longer be restored",
+						data.eventType(), data.entityId()))
+				.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Failed to update GD event journal", e)));
+	}
+
+	private Mono<GDEvent> restore(GDEventJournalData data) {
+		var id = data.entityId();
+		switch (data.eventType()) {
+			case "awarded_level_added":
+				return gdClient.getLevelById(id).map(AwardedLevelAddedEvent::new);
+			case "awarded_level_removed":
+				return gdClient.getLevelById(id).map(AwardedLevelRemovedEvent::new);
+			case "awarded_level_updated":
+				return gdClient.getLevelById(id).map(level -> new AwardedLevelUpdatedEvent(level, level));
+			case "daily_level_changed":
+				return gdClient.getDailyLevel().filter(timely -> timely.getId() == id).map(TimelyLevelChangedEvent::new);
+			case "weekly_demon_changed":
+				return gdClient.getWeeklyDemon().filter(timely -> timely.getId() == id).map(TimelyLevelChangedEvent::new);
+			case "user_promoted_to_mod":
+				return gdClient.getUserByAccountId(id).map(UserPromotedToModEvent::new);
+			case "user_promoted_to_elder":
+				return gdClient.getUserByAccountId(id).map(UserPromotedToElderEvent::new);
+			case "user_demoted_from_mod":
+				return gdClient.getUserByAccountId(id).map(UserDemotedFromModEvent::new);
+			case "user_demoted_from_elder":
+				return gdClient.getUserByAccountId(id).map(UserDemotedFromElderEvent::new);
+			default:
+				return Mono.empty();
+		}
+	}
+
+	static String typeOf(GDEvent event) {
+		if (event instanceof AwardedLevelAddedEvent) {
+			return "awarded_level_added";
+		}
+		if (event instanceof AwardedLevelRemovedEvent) {
+			return "awarded_level_removed";
+		}
+		if (event instanceof AwardedLevelUpdatedEvent) {
+			return "awarded_level_updated";
+		}
+		if (event instanceof TimelyLevelChangedEvent) {
+			return ((TimelyLevelChangedEvent) event).getTimelyLevel().getType() == TimelyType.DAILY
+					? "daily_level_changed" : "weekly_demon_changed";
+		}
+		if (event instanceof UserPromotedToModEvent) {
+			return "user_promoted_to_mod";
+		}
+		if (event instanceof UserPromotedToElderEvent) {
+			return "user_promoted_to_elder";
+		}
+		if (event instanceof UserDemotedFromModEvent) {
+			return "user_demoted_from_mod";
+		}
+		if (event instanceof UserDemotedFromElderEvent) {
+			return "user_demoted_from_elder";
+		}
+		return null;
+	}
+
+	static long entityIdOf(GDEvent event) {
+		if (event instanceof AwardedLevelAddedEvent) {
+			return ((AwardedLevelAddedEvent) event).getAddedLevel().getId();
+		}
+		if (event instanceof AwardedLevelRemovedEvent) {
+			return ((AwardedLevelRemovedEvent) event).getRemovedLevel().getId();
+		}
+		if (event instanceof AwardedLevelUpdatedEvent) {
+			return ((AwardedLevelUpdatedEvent) event).getNewLevel().getId();
+		}
+		if (event instanceof TimelyLevelChangedEvent) {
+			return ((TimelyLevelChangedEvent) event).getTimelyLevel().getId();
+		}
+		if (event instanceof UserEvent) {
+			return ((UserEvent) event).getUser().getAccountId();
+		}
+		throw new IllegalArgumentException("Unsupported event: " + event.getClass().getName());
+	}
+
+	private static class Entry {
+
+		private final long eventId;
+		private final Set<Long> deliveredChannels = ConcurrentHashMap.newKeySet();
+		private volatile boolean globalDelivered;
+		private volatile boolean channelDelivered;
+		private volatile boolean dmDelivered;
+
+		private Entry(long eventId, boolean globalDelivered, boolean channelDelivered, boolean dmDelivered,
+				Set<Long> deliveredChannels) {
+			this.eventId = eventId;
+			this.globalDelivered = globalDelivered;
+			this.channelDelivered = channelDelivered;
+			this.dmDelivered = dmDelivered;
+			this.deliveredChannels.addAll(deliveredChannels);
+		}
+
+		private boolean isDelivered(Target target) {
+			switch (target) {
+				case GLOBAL:
+					return globalDelivered;
+				case CHANNEL:
+					return channelDelivered;
+				default:
+					return dmDelivered;
+			}
+		}
+
+		private void setDelivered(Target target) {
+			switch (target) {
+				case GLOBAL:
+					globalDelivered = true;
+					break;
+				case CHANNEL:
+					channelDelivered = true;
+					break;
+				default:
+					dmDelivered = true;
+			}
+		}
+	}
+}
@@ -8,7 +8,6 @@ import com.github.alex1304.jdashevents.event.GDEvent;
 import com.github.alex1304.ultimategdbot.api.Translator;
 import com.github.alex1304.ultimategdbot.api.util.MessageSpecTemplate;
 
-import discord4j.core.object.entity.Message;
 import discord4j.rest.entity.RestChannel;
 import reactor.core.publisher.Mono;
 
@@ -19,14 +18,14 @@ class GDEventProperties<E extends GDEvent> {
 	private final Function<E, RestChannel> channel;
 	private final Function<E, Optional<Long>> levelIdGetter;
 	private final Function<E, Mono<Long>> recipientAccountId;
-	private final BiFunction<E, Message, Mono<MessageSpecTemplate>> messageTemplateFactory;
+	private final BiFunction<Translator, E, Mono<MessageSpecTemplate>> messageTemplateFactory;
 	private final Function<E, String> congratMessage;
 	private final boolean isUpdate;
 
 	GDEventProperties(BiFunction<Translator, E, String> logText, String databaseField,
 			Function<E, RestChannel> channel, Function<E, Optional<Long>> levelIdGetter,
 			Function<E, Mono<Long>> recipientAccountId,
-			BiFunction<E, Message, Mono<MessageSpecTemplate>> messageTemplateFactory,
+			BiFunction<Translator, E, Mono<MessageSpecTemplate>> messageTemplateFactory,
 			Function<E, String> congratMessage, boolean isUpdate) {
 		this.logText = logText;
 		this.databaseField = databaseField;
@@ -53,8 +52,8 @@ class GDEventProperties<E extends GDEvent> {
 	}
 	
 	@SuppressWarnings("unchecked")
-	Mono<MessageSpecTemplate> createMessageTemplate(GDEvent event, Message old) {
-		return messageTemplateFactory.apply((E) event, old);
+	Mono<MessageSpecTemplate> createMessageTemplate(Translator tr, GDEvent event) {
+		return messageTemplateFactory.apply(tr, (E) event);
 	}
 
 	@SuppressWarnings("unchecked")
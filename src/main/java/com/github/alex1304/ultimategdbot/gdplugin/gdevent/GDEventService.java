@@ -2,90 +2,117 @@ package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
 
 import static com.github.alex1304.ultimategdbot.api.util.Markdown.bold;
 import static java.util.stream.Collectors.toUnmodifiableList;
+import static java.util.stream.Collectors.toUnmodifiableMap;
 import static reactor.function.TupleUtils.function;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 
 import org.jdbi.v3.core.mapper.immutables.JdbiImmutables;
 
 import com.github.alex1304.jdash.client.AuthenticatedGDClient;
 import com.github.alex1304.jdash.entity.GDTimelyLevel.TimelyType;
-import com.github.alex1304.jdash.entity.GDUser;
 import com.github.alex1304.jdashevents.GDEventDispatcher;
-import com.github.alex1304.jdashevents.GDEventScannerLoop;
 import com.github.alex1304.jdashevents.event.AwardedLevelAddedEvent;
 import com.github.alex1304.jdashevents.event.AwardedLevelRemovedEvent;
 import com.github.alex1304.jdashevents.event.AwardedLevelUpdatedEvent;
 import com.github.alex1304.jdashevents.event.GDEvent;
 import com.github.alex1304.jdashevents.event.TimelyLevelChangedEvent;
-import com.github.alex1304.jdashevents.scanner.AwardedSectionScanner;
-import com.github.alex1304.jdashevents.scanner.DailyLevelScanner;
-import com.github.alex1304.jdashevents.scanner.GDEventScanner;
-import com.github.alex1304.jdashevents.scanner.WeeklyDemonScanner;
 import com.github.alex1304.ultimategdbot.api.BotConfig;
 import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.api.util.DurationUtils;
 import com.github.alex1304.ultimategdbot.api.util.Markdown;
 import com.github.alex1304.ultimategdbot.api.util.MessageSpecTemplate;
+import com.github.alex1304.ultimategdbot.gdplugin.cache.GDClientCache;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDAwardedLevelDao;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDAwardedLevelData;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDBackfillCheckpointData;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDBroadcastResultData;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDEventConfigDao;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDEventConfigData;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDEventJournalData;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDRateSubscriptionData;
 import com.github.alex1304.ultimategdbot.gdplugin.database.ImmutableGDAwardedLevelData;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.BroadcastScheduler.Priority;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.GDEventJournal.Target;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.GuildSubscriptionIndex.Subscription;
 import com.github.alex1304.ultimategdbot.gdplugin.level.GDLevelService;
 import com.github.alex1304.ultimategdbot.gdplugin.user.GDUserService;
 import com.github.alex1304.ultimategdbot.gdplugin.util.GDEvents;
 
 import discord4j.common.util.Snowflake;
-import discord4j.core.object.Embed.Author;
-import discord4j.core.object.entity.Message;
 import discord4j.rest.entity.RestChannel;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.util.Logger;
 import reactor.util.Loggers;
+import reactor.util.context.Context;
 
 public final class GDEventService {
 	
 	private static final Random RANDOM = new Random();
 	private static final Logger LOGGER = Loggers.getLogger(GDEventService.class);
+	// Key of the subscriber context holding the guilds a benchmark broadcasts to
+	private static final Object BENCHMARK_SUBSCRIBERS = new Object();
 
 	private final BotService bot;
 	private final AuthenticatedGDClient gdClient;
+	private final GDClientCache gdCache;
 	private final GDLevelService gdLevelService;
 	private final GDUserService gdUserService;
 
 	private final GDEventDispatcher gdEventDispatcher;
-	private final GDEventScannerLoop gdEventLoop;
-	private final BroadcastResultCache broadcastResultCache = new BroadcastResultCache();
+	private final EventScannerLoop gdEventLoop;
+	private final BackfillEngine backfillEngine;
+	private final BroadcastResultCache broadcastResultCache;
+	private final MessageTemplateRenderer templateRenderer = new MessageTemplateRenderer();
+	private final EventDigest digest;
 	private final Map<Class<? extends GDEvent>, GDEventProperties<? extends GDEvent>> eventProperties = initEventProps();
-	private final Scheduler gdEventScheduler = Schedulers.boundedElastic();
+	private final BroadcastSink sink;
 	private final CrosspostQueue crosspostQueue;
+	private final LevelUpdateDebouncer updateDebouncer;
+	private final GDEventJournal journal;
+	private final GuildSubscriptionIndex subscriptionIndex;
+	private final RateSubscriptionIndex rateSubscriptions;
+	private final int rateSubscriptionDmConcurrency;
+	private final GuildBroadcaster guildBroadcaster;
+	private final BroadcastScheduler broadcastScheduler;
 	
-	private final List<RestChannel> ratesChannels;
-	private final List<RestChannel> demonsChannels;
+	private final ChannelSelector ratesChannelSelector;
+	private final ChannelSelector demonsChannelSelector;
 	private final RestChannel timelyChannel;
 	private final RestChannel modsChannel;
-	
-	private long ratesChannelRotator = 0;
-	private long demonsChannelRotator = 0;
 
 	public GDEventService(
 			BotConfig botConfig,
 			BotService bot,
 			AuthenticatedGDClient gdClient,
+			GDClientCache gdCache,
 			GDLevelService gdLevelService,
 			GDUserService gdUserService) {
 		this.bot = bot;
 		bot.database().configureJdbi(jdbi -> {
-			jdbi.getConfig(JdbiImmutables.class).registerImmutable(GDAwardedLevelData.class);
+			jdbi.getConfig(JdbiImmutables.class).registerImmutable(GDAwardedLevelData.class, GDBackfillCheckpointData.class,
+					GDBroadcastResultData.class, GDEventConfigData.class, GDEventJournalData.class,
+					GDRateSubscriptionData.class);
 		});
+		this.subscriptionIndex = new GuildSubscriptionIndex(bot);
+		bot.database().addGuildConfigurator(GDEventConfigDao.class,
+				(data, tr) -> GDEventConfigData.configurator(data, tr, bot.gateway(), subscriptionIndex::update));
 		this.gdClient = gdClient;
+		this.gdCache = gdCache;
 		this.gdLevelService = gdLevelService;
 		this.gdUserService = gdUserService;
 		var gdConfig = botConfig.resource("gd");
@@ -93,40 +120,300 @@ public final class GDEventService {
 		var eventLoopInterval = Duration.ofSeconds(gdConfig.readOptional("gdplugin.event_loop_interval")
 				.map(Integer::parseInt)
 				.orElse(10));
-		this.gdEventLoop = new GDEventScannerLoop(gdClient, gdEventDispatcher, initScanners(),
-				eventLoopInterval);
-		this.ratesChannels = gdConfig.readAsStream("gdplugin.event.rates_channels_id", ",")
+		var eventLoopMinInterval = Duration.ofSeconds(gdConfig.readOptional("gdplugin.event_loop_min_interval")
+				.map(Integer::parseInt)
+				.orElse(5));
+		var eventLoopMaxInterval = Duration.ofSeconds(gdConfig.readOptional("gdplugin.event_loop_max_interval")
+				.map(Integer::parseInt)
+				.orElse(120));
+		var eventLoopBackoffFactor = gdConfig.readOptional("gdplugin.event_loop_backoff_factor")
+				.map(Double::parseDouble)
+				.orElse(1.5);
+		var requestBudget = gdConfig.readOptional("gdplugin.cooldown")
+				.map(Integer::parseInt)
+				.map(limit -> {
+					// Scanning may only use a share of the requests allowed per minute, the
+					// rest is left to interactive commands
+					var budgetShare = gdConfig.readOptional("gdplugin.event_loop_budget_share")
+							.map(Double::parseDouble)
+							.orElse(0.5);
+					return new RequestBudget(Math.max(1, limit * budgetShare));
+				})
+				.orElseGet(RequestBudget::unlimited);
+		var catchupMaxPages = gdConfig.readOptional("gdplugin.event_awarded_catchup_max_pages")
+				.map(Integer::parseInt)
+				.orElse(10);
+		var catchupConcurrency = gdConfig.readOptional("gdplugin.event_awarded_catchup_concurrency")
+				.map(Integer::parseInt)
+				.orElse(2);
+		var scanners = List.of(
+				new AwardedLevelScanner(bot, requestBudget, catchupMaxPages, catchupConcurrency),
+				new TimelyLevelScanner(false),
+				new TimelyLevelScanner(true));
+		var eventLoopScanDeadline = gdConfig.readOptional("gdplugin.event_loop_scan_deadline")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofMinutes(1));
+		var dedupeWindow = gdConfig.readOptional("gdplugin.event_dedupe_window")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofMinutes(10));
+		this.gdEventLoop = new EventScannerLoop(gdClient, gdEventDispatcher, scanners, eventLoopInterval,
+				eventLoopMinInterval, eventLoopMaxInterval, eventLoopBackoffFactor, requestBudget, eventLoopScanDeadline,
+				dedupeWindow.isZero() ? null : new EventDeduplicator(dedupeWindow));
+		var backfillInterval = gdConfig.readOptional("gdplugin.event_backfill_interval")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofSeconds(5));
+		this.backfillEngine = new BackfillEngine(bot, gdClient, gdEventDispatcher, requestBudget, backfillInterval);
+		var ratesChannels = gdConfig.readAsStream("gdplugin.event.rates_channels_id", ",")
 				.map(v -> RestChannel.create(bot.gateway().rest(), Snowflake.of(v)))
 				.collect(toUnmodifiableList());
-		this.demonsChannels = gdConfig.readAsStream("gdplugin.event.demons_channels_id", ",")
+		var demonsChannels = gdConfig.readAsStream("gdplugin.event.demons_channels_id", ",")
 				.map(v -> RestChannel.create(bot.gateway().rest(), Snowflake.of(v)))
 				.collect(toUnmodifiableList());
 		this.timelyChannel = gdConfig.readOptional("gdplugin.event.timely_channel_id").map(v -> RestChannel.create(bot.gateway().rest(), Snowflake.of(v))).orElse(null);
 		this.modsChannel = gdConfig.readOptional("gdplugin.event.mods_channel_id").map(v -> RestChannel.create(bot.gateway().rest(), Snowflake.of(v))).orElse(null);
-		this.crosspostQueue = new CrosspostQueue(bot);
+		var crosspostConcurrency = gdConfig.readOptional("gdplugin.crosspost_concurrency")
+				.map(Integer::parseInt)
+				.orElse(4);
+		var crosspostQueueCapacity = gdConfig.readOptional("gdplugin.crosspost_queue_capacity")
+				.map(Integer::parseInt)
+				.orElse(500);
+		var crosspostMaxRetries = gdConfig.readOptional("gdplugin.crosspost_max_retries")
+				.map(Integer::parseInt)
+				.orElse(5);
+		var crosspostWarnDelay = gdConfig.readOptional("gdplugin.crosspost_warn_delay")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofSeconds(30));
+		var baseSink = gdConfig.readOptional("gdplugin.event_sink")
+				.filter("dry_run"::equals)
+				.<BroadcastSink>map(v -> {
+					LOGGER.warn("GD events are broadcast to the dry-run sink, no message will be sent to Discord");
+					return new DryRunBroadcastSink(
+							gdConfig.readOptional("gdplugin.event_dry_run_latency")
+									.map(ms -> Duration.ofMillis(Long.parseLong(ms)))
+									.orElse(Duration.ofMillis(100)),
+							gdConfig.readOptional("gdplugin.event_dry_run_latency_jitter")
+									.map(ms -> Duration.ofMillis(Long.parseLong(ms)))
+									.orElse(Duration.ofMillis(50)),
+							gdConfig.readOptional("gdplugin.event_dry_run_rate_limit_ratio")
+									.map(Double::parseDouble)
+									.orElse(0.0),
+							gdConfig.readOptional("gdplugin.event_dry_run_retry_after")
+									.map(ms -> Duration.ofMillis(Long.parseLong(ms)))
+									.orElse(Duration.ofSeconds(1)));
+				})
+				.orElseGet(() -> new RestBroadcastSink(bot));
+		// Format: <channel_id>:<webhook_id>/<webhook_token>,...
+		var webhooks = gdConfig.readAsStream("gdplugin.event.webhooks", ",")
+				.map(String::trim)
+				.filter(v -> !v.isEmpty())
+				.map(GDEventService::parseWebhook)
+				.flatMap(Optional::stream)
+				.collect(toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue, (first, second) -> {
+					LOGGER.warn("Several webhooks configured for the same channel, keeping the first one");
+					return first;
+				}));
+		this.sink = webhooks.isEmpty() ? baseSink : new WebhookBroadcastSink(baseSink,
+				bot.gateway().getCoreResources().getJacksonResources().getObjectMapper(),
+				gdConfig.readOptional("gdplugin.event_webhook_base_url").orElse("https://discord.com/api/v8"),
+				gdConfig.readOptional("gdplugin.event_webhook_timeout")
+						.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+						.orElse(Duration.ofSeconds(10)),
+				webhooks);
+		var journalReplayInterval = gdConfig.readOptional("gdplugin.event_journal_replay_interval")
+				.map(v -> Duration.ofMillis(Long.parseLong(v)))
+				.orElse(Duration.ofSeconds(2));
+		var journalReplayMaxAge = gdConfig.readOptional("gdplugin.event_journal_replay_max_age")
+				.map(v -> Duration.ofMinutes(Long.parseLong(v)))
+				.orElse(Duration.ofHours(6));
+		var journalBatchSize = gdConfig.readOptional("gdplugin.event_journal_batch_size")
+				.map(Integer::parseInt)
+				.orElse(50);
+		var broadcastResultCacheSize = gdConfig.readOptional("gdplugin.event_broadcast_result_cache_size")
+				.map(Integer::parseInt)
+				.orElse(50);
+		this.broadcastResultCache = new BroadcastResultCache(bot, broadcastResultCacheSize);
+		var digestEnabled = gdConfig.readOptional("gdplugin.event_digest_enabled")
+				.map(Boolean::parseBoolean)
+				.orElse(false);
+		var digestWindow = gdConfig.readOptional("gdplugin.event_digest_window")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofSeconds(10));
+		var digestMaxSize = gdConfig.readOptional("gdplugin.event_digest_max_size")
+				.map(Integer::parseInt)
+				.orElse(10);
+		var updateDebounceWindow = gdConfig.readOptional("gdplugin.event_update_debounce_window")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofSeconds(30));
+		var updateDebounceMaxDelay = gdConfig.readOptional("gdplugin.event_update_debounce_max_delay")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofMinutes(2));
+		this.updateDebouncer = new LevelUpdateDebouncer(updateDebounceWindow, updateDebounceMaxDelay);
+		this.digest = digestEnabled ? new EventDigest(digestWindow, Math.min(25, digestMaxSize)) : null;
+		this.journal = new GDEventJournal(bot, gdClient, journalReplayInterval, journalReplayMaxAge, journalBatchSize);
+		var guildBroadcastBatchSize = gdConfig.readOptional("gdplugin.event_guild_broadcast_batch_size")
+				.map(Integer::parseInt)
+				.orElse(50);
+		var guildBroadcastConcurrency = gdConfig.readOptional("gdplugin.event_guild_broadcast_concurrency")
+				.map(Integer::parseInt)
+				.orElse(8);
+		var broadcastGlobalRate = gdConfig.readOptional("gdplugin.event_broadcast_global_rate")
+				.map(Integer::parseInt)
+				.orElse(40);
+		var broadcastChannelBurst = gdConfig.readOptional("gdplugin.event_broadcast_channel_burst")
+				.map(Integer::parseInt)
+				.orElse(5);
+		var broadcastChannelPeriod = gdConfig.readOptional("gdplugin.event_broadcast_channel_period")
+				.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+				.orElse(Duration.ofSeconds(5));
+		var broadcastDeadlines = Map.of(
+				Priority.PUBLIC_POST, gdConfig.readOptional("gdplugin.event_broadcast_deadline_public")
+						.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+						.orElse(Duration.ofMinutes(5)),
+				Priority.EDIT, gdConfig.readOptional("gdplugin.event_broadcast_deadline_edit")
+						.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+						.orElse(Duration.ofMinutes(10)),
+				Priority.DM, gdConfig.readOptional("gdplugin.event_broadcast_deadline_dm")
+						.map(v -> Duration.ofSeconds(Long.parseLong(v)))
+						.orElse(Duration.ofMinutes(30)));
+		var laneOrder = gdConfig.readAsStream("gdplugin.event_lane_priority", ",")
+				.map(v -> EventLane.valueOf(v.trim().toUpperCase()))
+				.distinct()
+				.collect(toUnmodifiableList());
+		if (laneOrder.isEmpty()) {
+			laneOrder = List.of(EventLane.TIMELY, EventLane.MODERATOR, EventLane.AWARDED);
+		}
+		this.broadcastScheduler = new BroadcastScheduler(broadcastGlobalRate, broadcastChannelBurst,
+				broadcastChannelPeriod, broadcastDeadlines, laneOrder);
+		this.crosspostQueue = new CrosspostQueue(bot, sink, broadcastScheduler, crosspostConcurrency,
+				crosspostQueueCapacity, crosspostMaxRetries, crosspostWarnDelay);
+		this.ratesChannelSelector = new ChannelSelector(ratesChannels, broadcastScheduler, crosspostQueue);
+		this.demonsChannelSelector = new ChannelSelector(demonsChannels, broadcastScheduler, crosspostQueue);
+		this.guildBroadcaster = new GuildBroadcaster(sink, broadcastScheduler, guildBroadcastBatchSize,
+				guildBroadcastConcurrency);
+		subscriptionIndex.load().subscribe(null, e -> LOGGER.error("Failed to load GD event subscriptions", e));
+		this.rateSubscriptions = new RateSubscriptionIndex(bot, gdConfig.readOptional("gdplugin.ratesub_max_per_user")
+				.map(Integer::parseInt)
+				.orElse(10));
+		this.rateSubscriptionDmConcurrency = gdConfig.readOptional("gdplugin.event_ratesub_dm_concurrency")
+				.map(Integer::parseInt)
+				.orElse(8);
+		rateSubscriptions.load().subscribe(null, e -> LOGGER.error("Failed to load rate subscriptions", e));
 		// Activate dispatcher and loop
 		var autostartEventLoop = gdConfig.readOptional("gdplugin.autostart_event_loop")
 				.map(Boolean::parseBoolean)
 				.orElse(true);
-		gdEventDispatcher.on(GDEvent.class)
-				.subscribe(new GDEventSubscriber(this, gdEventScheduler));
+		// Kept for compatibility, used as the concurrency of the awarded lane if not configured
+		var eventProcessingConcurrency = gdConfig.readOptional("gdplugin.event_processing_concurrency")
+				.map(Integer::parseInt);
+		var laneSubscribers = new EnumMap<EventLane, Consumer<Flux<GDEvent>>>(EventLane.class);
+		for (var lane : EventLane.values()) {
+			var concurrency = gdConfig.readOptional("gdplugin.event_lane_" + lane.configName() + "_concurrency")
+					.map(Integer::parseInt)
+					.or(() -> lane == EventLane.AWARDED ? eventProcessingConcurrency : Optional.empty())
+					.orElse(lane.defaultConcurrency());
+			var queueSize = gdConfig.readOptional("gdplugin.event_lane_" + lane.configName() + "_queue_size")
+					.map(Integer::parseInt)
+					.orElse(lane.defaultQueueSize());
+			var scheduler = Schedulers.newBoundedElastic(Math.max(2, concurrency), Integer.MAX_VALUE,
+					"gd-event-" + lane.configName());
+			// Events dropped here are still in the journal, they will be replayed on next startup
+			laneSubscribers.put(lane, events -> events
+					.onBackpressureBuffer(queueSize, event -> LOGGER.warn("Queue of GD event lane {} is full, dropped {}",
+							lane, event), BufferOverflowStrategy.DROP_LATEST)
+					.subscribe(new GDEventSubscriber(this, scheduler, concurrency, lane)));
+		}
+		Flux.merge(journal.replayUndelivered(),
+						gdEventDispatcher.on(GDEvent.class)
+								.transform(updateDebouncer::debounce)
+								.bufferTimeout(journalBatchSize, Duration.ofMillis(500))
+								.onBackpressureBuffer()
+								.concatMap(journal::record))
+				.groupBy(EventLane::of)
+				.subscribe(group -> laneSubscribers.get(group.key()).accept(group));
+		Flux.interval(Duration.ofHours(1), Duration.ofDays(1))
+				.flatMap(tick -> journal.purge()
+						.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Error while purging GD event journal", e)))
+						.and(broadcastResultCache.purge()
+								.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Error while purging broadcast results", e)))))
+				.subscribe();
 		if (autostartEventLoop) {
 			gdEventLoop.start();
 		}
 	}
 	
-	private static Set<GDEventScanner> initScanners() {
-		return Set.of(new AwardedSectionScanner(), new DailyLevelScanner(), new WeeklyDemonScanner());
-	}
-	
 	public GDEventDispatcher dispatcher() {
 		return gdEventDispatcher;
 	}
 	
-	public GDEventScannerLoop loop() {
+	public EventScannerLoop loop() {
 		return gdEventLoop;
 	}
 	
+	public BackfillEngine backfill() {
+		return backfillEngine;
+	}
+	
+	public BroadcastScheduler broadcastScheduler() {
+		return broadcastScheduler;
+	}
+	
+	public CrosspostQueue crosspostQueue() {
+		return crosspostQueue;
+	}
+	
+	public RateSubscriptionIndex rateSubscriptions() {
+		return rateSubscriptions;
+	}
+	
+	public List<BroadcastProgress> guildBroadcastsInProgress() {
+		return guildBroadcaster.getInProgress();
+	}
+	
+	/**
+	 * Measures how fast the broadcast pipeline delivers events to subscribed
+	 * guilds. The current Daily level is processed the given number of times
+	 * with the dry-run sink, so this is only available when the dry-run sink is
+	 * configured. Events go through the same processing as dispatched events
+	 * (global post, crosspost, guild broadcast and DMs), except for the journal,
+	 * so that an interrupted benchmark is never replayed as real events, for
+	 * deduplication since the same event is repeated on purpose, and for the
+	 * queue of the lane, which could drop some of them. Nothing is logged in the
+	 * log channel of the bot.
+	 * 
+	 * @param eventCount  the number of events to broadcast
+	 * @param guildCount  the number of synthetic guilds to broadcast to, or a
+	 *                    negative value to use the actual subscribed guilds
+	 * @param concurrency the number of events broadcast at the same time
+	 * @return a Mono emitting the report of the benchmark
+	 */
+	public Mono<BenchmarkReport> benchmark(int eventCount, int guildCount, int concurrency) {
+		if (!(sink instanceof DryRunBroadcastSink)) {
+			return Mono.error(new IllegalStateException("Benchmarks require the dry-run sink"));
+		}
+		var dryRun = (DryRunBroadcastSink) sink;
+		var eventProps = eventProperties.get(TimelyLevelChangedEvent.class);
+		var subscribers = guildCount < 0 ? subscriptionIndex.get(eventProps.databaseField())
+				: LongStream.rangeClosed(1, guildCount)
+						.mapToObj(id -> new Subscription(id, id, 0))
+						.collect(toUnmodifiableList());
+		return gdCache.getDailyLevel().flatMap(timely -> {
+			dryRun.reset();
+			var start = System.nanoTime();
+			var latencies = new long[eventCount];
+			return Flux.range(0, eventCount)
+					.flatMap(i -> {
+						var eventStart = System.nanoTime();
+						return process(new TimelyLevelChangedEvent(timely))
+								.then(Mono.fromRunnable(() -> latencies[i] = System.nanoTime() - eventStart));
+					}, concurrency)
+					.then(Mono.fromCallable(() -> new BenchmarkReport(eventCount, dryRun.getRequestCount("createMessage"),
+							Duration.ofNanos(System.nanoTime() - start), latencies, dryRun.getRequestCount(),
+							dryRun.getRateLimitedCount(), dryRun.getRequestCountByOperation(),
+							dryRun.getRecordedRequests())))
+					.subscriberContext(Context.of(EventLane.class, EventLane.TIMELY, BENCHMARK_SUBSCRIBERS, subscribers));
+		});
+	}
+	
 	Mono<Void> process(GDEvent event) {
 		var eventProps = eventProperties.get(event.getClass());
 		if (eventProps == null) {
@@ -140,52 +427,194 @@ public final class GDEventService {
 						.then(broadcast(event, eventProps)
 								.elapsed()
 								.flatMap(function((time, count) -> log(success + ' ' + tr.translate("GDStrings", "gdevproc_success") + ' ' + logText)))
-								.onErrorResume(e -> bot.logging().log(failed + ' ' + tr.translate("GDStrings", "gdevproc_error")
+								.onErrorResume(e -> log(failed + ' ' + tr.translate("GDStrings", "gdevproc_error")
 												+ ' ' + logText + ": " + Markdown.code(e.getClass().getName()))
 										.and(Mono.fromRunnable(() -> LOGGER.error("An error occured while dispatching GD event", e)))))));
 	}
 	
 	private Mono<Integer> broadcast(GDEvent event, GDEventProperties<? extends GDEvent> eventProps) {
+		var tr = bot.localization();
 		if (eventProps.isUpdate()) {
-			return Mono.justOrEmpty(eventProps.levelId(event).flatMap(broadcastResultCache::get))
-					.flatMapMany(Flux::fromIterable)
-					.flatMap(old -> eventProps.createMessageTemplate(event, old)
-							.map(MessageSpecTemplate::toMessageEditSpec)
-							.flatMap(old::edit))
-					.collectList()
-					.filter(results -> !results.isEmpty())
-					.doOnNext(results -> eventProps.levelId(event).ifPresent(id -> broadcastResultCache.put(id, results)))
-					.map(List::size)
-					.defaultIfEmpty(0);
+			return eventProps.levelId(event).map(levelId -> broadcastResultCache.get(levelId)
+					.flatMap(pairs -> templateRenderer.render(event, eventProps, tr)
+							.map(template -> GDEvents.editSpecToRequest(spec -> spec.setEmbed(template.getEmbed())))
+							// Skip editing if the messages would end up identical to the last edit
+							.filter(request -> updateDebouncer.isEditNeeded(levelId, request))
+							.flatMap(request -> {
+								var failed = new AtomicBoolean();
+								return Flux.range(0, pairs.length / 2)
+										.flatMap(i -> broadcastScheduler.schedule(Priority.EDIT, pairs[i * 2],
+														sink.editMessage(pairs[i * 2], pairs[i * 2 + 1], request).thenReturn(i))
+												.onErrorResume(e -> Mono.fromRunnable(() -> {
+													failed.set(true);
+													LOGGER.debug("Unable to edit message " + pairs[i * 2 + 1]
+															+ " in channel " + pairs[i * 2], e);
+												})))
+										.count()
+										// Only a fully applied edit may cause identical ones to be skipped
+										.doOnNext(count -> {
+											if (!failed.get()) {
+												updateDebouncer.recordEdit(levelId, request);
+											}
+										});
+							})
+							.map(Long::intValue)))
+					.orElse(Mono.empty())
+					.defaultIfEmpty(0)
+					.flatMap(count -> journal.markDelivered(event, Target.CHANNEL)
+							.then(journal.markDelivered(event, Target.DM))
+							.thenReturn(count));
 		}
-		var tr = bot.localization();
 		var logText = eventProps.logText(tr, event);
-		var guildBroadcast = eventProps.createMessageTemplate(event, null)
-						.flatMap(msg -> Optional.ofNullable(eventProps.channel(event))
-								.map(channel -> channel
-										.createMessage(GDEvents.specToRequest(msg.toMessageCreateSpec()))
-										.map(data -> new Message(bot.gateway(), data)))
-								.orElse(Mono.empty()))
-						.doOnNext(msg -> crosspostQueue.submit(msg, event, eventProps));
-		var dmBroadcast = eventProps.recipientAccountId(event)
-				.flatMapMany(gdUserService::getDiscordAccountsForGDUser)
-				.flatMap(user -> user.getPrivateChannel()
-						.flatMap(channel -> eventProps.createMessageTemplate(event, null)
-								.map(msg -> new MessageSpecTemplate(tr.translate("GDStrings", eventProps.congratMessage(event)), msg.getEmbed()))
-								.map(MessageSpecTemplate::toMessageCreateSpec)
-								.flatMap(channel::createMessage))
-						.flatMap(message -> bot.emoji().get("success")
-								.flatMap(em -> log(em + tr.translate("GDStrings", "gdevproc_dm_log", user.getTag(), logText)))
-								.thenReturn(message)))
-				.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.debug("Could not DM user for GD event", e)));
+		Flux<SentMessage> guildBroadcast;
+		if (journal.isDelivered(event, Target.CHANNEL)) {
+			guildBroadcast = Flux.empty();
+		} else if (digest != null && event instanceof AwardedLevelAddedEvent) {
+			// The digest is published in background so that events of the same batch
+			// can be processed concurrently. Its messages are not saved in the
+			// broadcast results, as they must not be edited into a single level view.
+			digest.submit(((AwardedLevelAddedEvent) event).getAddedLevel().isDemon(), event,
+							events -> publishDigest(events, eventProps))
+					.subscribe(null, e -> LOGGER.error("Failed to publish digest", e));
+			guildBroadcast = Flux.empty();
+		} else {
+			guildBroadcast = templateRenderer.render(event, eventProps, tr)
+					.flatMapMany(msg -> publish(msg, event, eventProps, logText, true))
+					.concatWith(journal.markDelivered(event, Target.CHANNEL).then(Mono.empty()));
+		}
+		var dmBroadcast = journal.isDelivered(event, Target.DM) ? Flux.<SentMessage>empty()
+				: Flux.merge(eventProps.recipientAccountId(event)
+						.flatMapMany(gdUserService::getDiscordAccountsForGDUser)
+						.flatMap(user -> sink.openPrivateChannel(user)
+								.flatMap(channelId -> templateRenderer.render(event, eventProps, tr)
+										.map(msg -> new MessageSpecTemplate(tr.translate("GDStrings", eventProps.congratMessage(event)), msg.getEmbed()))
+										.map(msg -> GDEvents.specToRequest(msg.toMessageCreateSpec()))
+										.flatMap(request -> broadcastScheduler.schedule(Priority.DM, channelId,
+												sink.createMessage(channelId, request))))
+								.flatMap(message -> bot.emoji().get("success")
+										.flatMap(em -> log(em + tr.translate("GDStrings", "gdevproc_dm_log", user.getTag(), logText)))
+										.thenReturn(message)))
+						.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.debug("Could not DM user for GD event", e))),
+						notifyRateSubscribers(event, eventProps))
+				.concatWith(journal.markDelivered(event, Target.DM).then(Mono.empty()));
+		var results = new ConcurrentLinkedQueue<SentMessage>();
 		return Flux.merge(guildBroadcast, dmBroadcast)
+				.doOnNext(results::add)
+				.then()
+				// The messages sent before an error are saved as well, so that they can
+				// still be edited when the level is updated
+				.onErrorResume(e -> saveBroadcastResults(event, eventProps, results).then(Mono.error(e)))
+				.then(Mono.defer(() -> saveBroadcastResults(event, eventProps, results)))
+				.then(Mono.fromCallable(results::size));
+	}
+	
+	private Mono<Void> saveBroadcastResults(GDEvent event, GDEventProperties<? extends GDEvent> eventProps,
+			Collection<SentMessage> results) {
+		if (results.isEmpty()) {
+			return Mono.empty();
+		}
+		return eventProps.levelId(event)
+				.map(id -> broadcastResultCache.add(id, List.copyOf(results))
+						.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Failed to save broadcast results", e))))
+				.orElse(Mono.empty());
+	}
+	
+	/**
+	 * Sends a DM to the users having a rate subscription matching the level that
+	 * was rated. These messages are not part of the broadcast results, so that
+	 * level updates don't have to edit them all.
+	 */
+	private Flux<SentMessage> notifyRateSubscribers(GDEvent event, GDEventProperties<? extends GDEvent> eventProps) {
+		if (!(event instanceof AwardedLevelAddedEvent)) {
+			return Flux.empty();
+		}
+		var level = ((AwardedLevelAddedEvent) event).getAddedLevel();
+		var userIds = rateSubscriptions.match(level);
+		if (userIds.isEmpty()) {
+			return Flux.empty();
+		}
+		var tr = bot.localization();
+		return templateRenderer.render(event, eventProps, tr)
+				.map(msg -> GDEvents.specToRequest(new MessageSpecTemplate(
+						tr.translate("GDStrings", "gdevproc_ratesub_dm", level.getName()), msg.getEmbed()).toMessageCreateSpec()))
+				.flatMapMany(request -> Flux.fromIterable(userIds)
+						.flatMap(userId -> bot.gateway().getUserById(Snowflake.of(userId))
+								.flatMap(sink::openPrivateChannel)
+								.flatMap(channelId -> broadcastScheduler.schedule(Priority.DM, channelId,
+										sink.createMessage(channelId, request)))
+								.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.debug("Could not DM rate subscriber " + userId, e))),
+								rateSubscriptionDmConcurrency))
+				.thenMany(Flux.empty());
+	}
+	
+	/**
+	 * Posts the message in the global channel of the event (crossposting it) and
+	 * in the channels of all subscribed guilds. If checkpointed, deliveries are
+	 * recorded in the journal as they happen, and the targets already reached by
+	 * an interrupted broadcast of the same event are skipped.
+	 */
+	private Flux<SentMessage> publish(MessageSpecTemplate msg, GDEvent event, GDEventProperties<? extends GDEvent> eventProps,
+			String logText, boolean checkpointed) {
+		return Mono.subscriberContext().flatMapMany(context -> {
+			Collection<Subscription> subscribers = context.getOrDefault(BENCHMARK_SUBSCRIBERS,
+					subscriptionIndex.get(eventProps.databaseField()));
+			Consumer<BroadcastProgress> onDone = context.hasKey(BENCHMARK_SUBSCRIBERS) ? progress -> {}
+					: this::logGuildBroadcastDone;
+			return publish(msg, event, eventProps, logText, checkpointed, subscribers, onDone);
+		});
+	}
+	
+	private Flux<SentMessage> publish(MessageSpecTemplate msg, GDEvent event, GDEventProperties<? extends GDEvent> eventProps,
+			String logText, boolean checkpointed, Collection<Subscription> subscribers, Consumer<BroadcastProgress> onDone) {
+		var globalPost = Mono.defer(() -> Mono.justOrEmpty(eventProps.channel(event)))
+				.flatMap(channel -> broadcastScheduler.schedule(Priority.PUBLIC_POST, channel.getId().asLong(),
+						sink.createMessage(channel.getId().asLong(), GDEvents.specToRequest(msg.toMessageCreateSpec()))))
+				.doOnNext(posted -> crosspostQueue.submit(posted, event, eventProps));
+		if (!checkpointed) {
+			return Flux.mergeDelayError(2, globalPost, guildBroadcaster.broadcast(logText, msg, subscribers, onDone));
+		}
+		return Flux.mergeDelayError(2,
+				journal.isDelivered(event, Target.GLOBAL) ? Mono.<SentMessage>empty()
+						: globalPost.flatMap(posted -> journal.markDelivered(event, Target.GLOBAL).thenReturn(posted)),
+				journal.checkpoint(event, guildBroadcaster.broadcast(logText, msg, subscribers.stream()
+								.filter(sub -> !journal.isDeliveredTo(event, sub.channelId()))
+								.collect(toUnmodifiableList()),
+						onDone)));
+	}
+	
+	private Mono<List<SentMessage>> publishDigest(List<GDEvent> events, GDEventProperties<? extends GDEvent> eventProps) {
+		var tr = bot.localization();
+		var levels = events.stream()
+				.map(event -> ((AwardedLevelAddedEvent) event).getAddedLevel())
+				.collect(toUnmodifiableList());
+		var logText = tr.translate("GDStrings", "gdevproc_digest_log", levels.size());
+		return gdLevelService.digestView(tr, levels, tr.translate("GDStrings", "gdevproc_title_digest", levels.size()),
+						"https://i.imgur.com/asoMj1W.png")
+				.map(embed -> new MessageSpecTemplate(randomString(tr.translate("GDStrings", "gdevproc_public_rate")), embed))
+				// A digest is made of different events each time, so it can't be resumed
+				.flatMapMany(msg -> publish(msg, events.get(0), eventProps, logText, false))
 				.collectList()
-				.doOnNext(results -> eventProps.levelId(event).ifPresent(id -> broadcastResultCache.put(id, results)))
-				.map(List::size);
+				.flatMap(messages -> Flux.fromIterable(events)
+						.concatMap(event -> journal.markDelivered(event, Target.CHANNEL))
+						.then(bot.emoji().get("success"))
+						.flatMap(emoji -> log(emoji + ' ' + tr.translate("GDStrings", "gdevproc_digest_published", logText)))
+						.thenReturn(messages));
+	}
+	
+	private void logGuildBroadcastDone(BroadcastProgress progress) {
+		var tr = bot.localization();
+		bot.emoji().get(progress.getFailed() == 0 ? "success" : "info")
+				.flatMap(emoji -> log(emoji + ' ' + tr.translate("GDStrings", "gdevproc_guild_broadcast_done",
+						progress.getDelivered(), progress.getTotal(), progress.getFailed(),
+						DurationUtils.format(progress.getElapsed()), progress.getLogText())))
+				.subscribe();
 	}
 	
 	private Mono<Void> log(String text) {
-		return Mono.when(bot.logging().log(text).onErrorResume(e -> Mono.empty()), Mono.fromRunnable(() -> LOGGER.info(text)));
+		return Mono.subscriberContext().flatMap(context -> Mono.when(
+				// Benchmarks would flood the log channel
+				context.hasKey(BENCHMARK_SUBSCRIBERS) ? Mono.empty() : bot.logging().log(text).onErrorResume(e -> Mono.empty()),
+				Mono.fromRunnable(() -> LOGGER.info(text))));
 	}
 	
 	private Map<Class<? extends GDEvent>, GDEventProperties<? extends GDEvent>> initEventProps() {
@@ -195,8 +624,8 @@ public final class GDEventService {
 								bold(event.getClass().getSimpleName()), GDLevelService.toString(event.getAddedLevel())),
 						"awarded_levels",
 						event -> event.getAddedLevel().isDemon()
-								? demonsChannels.get((int) (demonsChannelRotator++ % demonsChannels.size()))
-								: ratesChannels.get((int) (ratesChannelRotator++ % ratesChannels.size())),
+								? demonsChannelSelector.select()
+								: ratesChannelSelector.select(),
 						event -> Optional.of(event.getAddedLevel().getId()),
 						event -> bot.database().useExtension(GDAwardedLevelDao.class, dao -> dao.insertOrUpdate(
 										ImmutableGDAwardedLevelData.builder()
@@ -206,12 +635,12 @@ public final class GDEventService {
 												.likes(event.getAddedLevel().getLikes())
 												.build()))
 								.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Error when saving new awarded level", e)))
-								.then(gdClient.searchUser("" + event.getAddedLevel().getCreatorID()).map(GDUser::getAccountId)),
-						(event, old) -> gdLevelService
-								.compactView(bot.localization(), event.getAddedLevel(),
-										bot.localization().translate("GDStrings", "gdevproc_title_rate"),
+								.then(gdCache.getAccountIdByPlayerId(event.getAddedLevel().getCreatorID())),
+						(tr, event) -> gdLevelService
+								.compactView(tr, event.getAddedLevel(),
+										tr.translate("GDStrings", "gdevproc_title_rate"),
 										"https://i.imgur.com/asoMj1W.png")
-								.map(embed -> new MessageSpecTemplate(randomString(bot.localization()
+								.map(embed -> new MessageSpecTemplate(randomString(tr
 														.translate("GDStrings", "gdevproc_public_rate")),
 										embed)),
 						event -> "gdevproc_dm_rate",
@@ -221,14 +650,16 @@ public final class GDEventService {
 						(tr, event) -> tr.translate("GDStrings", "gdevproc_awarded_event_log",
 								bold(event.getClass().getSimpleName()), GDLevelService.toString(event.getRemovedLevel())),
 						"awarded_levels",
-						event -> ratesChannels.get((int) (ratesChannelRotator % ratesChannels.size())),
+						event -> ratesChannelSelector.select(),
 						event -> Optional.empty(),
-						event -> gdClient.searchUser("" + event.getRemovedLevel().getCreatorID()).map(GDUser::getAccountId),
-						(event, old) -> gdLevelService
-								.compactView(bot.localization(), event.getRemovedLevel(), 
-										bot.localization().translate("GDStrings", "gdevproc_title_unrate"),
+						event -> bot.database().useExtension(GDAwardedLevelDao.class, dao -> dao.delete(event.getRemovedLevel().getId()))
+								.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Error when deleting unrated awarded level", e)))
+								.then(gdCache.getAccountIdByPlayerId(event.getRemovedLevel().getCreatorID())),
+						(tr, event) -> gdLevelService
+								.compactView(tr, event.getRemovedLevel(), 
+										tr.translate("GDStrings", "gdevproc_title_unrate"),
 										"https://i.imgur.com/fPECXUz.png")
-								.map(embed -> new MessageSpecTemplate(randomString(bot.localization()
+								.map(embed -> new MessageSpecTemplate(randomString(tr
 												.translate("GDStrings", "gdevproc_public_unrate")),
 										embed)),
 						event -> "gdevproc_dm_unrate",
@@ -240,12 +671,13 @@ public final class GDEventService {
 						"awarded_levels",
 						event -> { throw new UnsupportedOperationException(); },
 						event -> Optional.of(event.getNewLevel().getId()),
-						event -> gdClient.searchUser("" + event.getNewLevel().getCreatorID()).map(GDUser::getAccountId),
-						(event, old) -> gdLevelService
-								.compactView(bot.localization(), event.getNewLevel(),
-										old.getEmbeds().get(0).getAuthor().map(Author::getName).orElseThrow(),
-										old.getEmbeds().get(0).getAuthor().map(Author::getIconUrl).orElseThrow())
-								.map(embed -> new MessageSpecTemplate(old.getContent(), embed)),
+						event -> gdCache.getAccountIdByPlayerId(event.getNewLevel().getCreatorID()),
+						(tr, event) -> gdLevelService
+								.compactView(tr, event.getNewLevel(),
+										tr.translate("GDStrings", "gdevproc_title_rate"),
+										"https://i.imgur.com/asoMj1W.png")
+								// Only the embed is used, the content of the original messages is kept
+								.map(embed -> new MessageSpecTemplate("", embed)),
 						event -> { throw new UnsupportedOperationException(); },
 						true
 				)),
@@ -256,18 +688,17 @@ public final class GDEventService {
 						"timely_levels",
 						event -> timelyChannel,
 						event -> Optional.empty(),
-						event -> event.getTimelyLevel().getLevel()
-								.flatMap(level -> gdClient.searchUser("" + level.getCreatorID()))
-								.map(GDUser::getAccountId),
-						(event, old) -> {
+						event -> gdCache.getTimelyLevel(event.getTimelyLevel())
+								.flatMap(level -> gdCache.getAccountIdByPlayerId(level.getCreatorID())),
+						(tr, event) -> {
 							var isWeekly = event.getTimelyLevel().getType() == TimelyType.WEEKLY;
 							var headerTitle = isWeekly ? "Weekly Demon" : "Daily Level";
 							var headerLink = isWeekly ? "https://i.imgur.com/kcsP5SN.png"
 									: "https://i.imgur.com/enpYuB8.png";
-							return event.getTimelyLevel().getLevel()
-									.flatMap(level -> gdLevelService.compactView(bot.localization(), level,
+							return gdCache.getTimelyLevel(event.getTimelyLevel())
+									.flatMap(level -> gdLevelService.compactView(tr, level,
 											headerTitle + " #" + event.getTimelyLevel().getId(), headerLink))
-									.map(embed -> new MessageSpecTemplate(randomString(bot.localization()
+									.map(embed -> new MessageSpecTemplate(randomString(tr
 													.translate("GDStrings", isWeekly ? "gdevproc_public_weekly"
 															: "gdevproc_public_daily")),
 											embed));
@@ -283,12 +714,12 @@ public final class GDEventService {
 						event -> modsChannel,
 						event -> Optional.empty(),
 						event -> Mono.just(event.getUser().getAccountId()),
-						(event, old) -> gdUserService
-								.makeIconSet(bot.localization(), event.getUser())
-								.flatMap(icons -> gdUserService.userProfileView(bot.localization(), null, event.getUser(),
-										bot.localization().translate("GDStrings", "gdevproc_title_promoted"),
+						(tr, event) -> gdUserService
+								.makeIconSet(tr, event.getUser())
+								.flatMap(icons -> gdUserService.userProfileView(tr, null, event.getUser(),
+										tr.translate("GDStrings", "gdevproc_title_promoted"),
 										"https://i.imgur.com/zY61GDD.png", icons))
-								.map(msg -> new MessageSpecTemplate(randomString(bot.localization().translate("GDStrings", "gdevproc_public_mod")),
+								.map(msg -> new MessageSpecTemplate(randomString(tr.translate("GDStrings", "gdevproc_public_mod")),
 										msg.getEmbed())),
 						event -> "gdevproc_dm_mod",
 						false
@@ -300,12 +731,12 @@ public final class GDEventService {
 						event -> modsChannel,
 						event -> Optional.empty(),
 						event -> Mono.just(event.getUser().getAccountId()),
-						(event, old) -> gdUserService
-								.makeIconSet(bot.localization(), event.getUser())
-								.flatMap(icons -> gdUserService.userProfileView(bot.localization(), null, event.getUser(),
-										bot.localization().translate("GDStrings", "gdevproc_title_promoted"),
+						(tr, event) -> gdUserService
+								.makeIconSet(tr, event.getUser())
+								.flatMap(icons -> gdUserService.userProfileView(tr, null, event.getUser(),
+										tr.translate("GDStrings", "gdevproc_title_promoted"),
 										"https://i.imgur.com/zY61GDD.png", icons))
-								.map(msg -> new MessageSpecTemplate(randomString(bot.localization()
+								.map(msg -> new MessageSpecTemplate(randomString(tr
 												.translate("GDStrings", "gdevproc_public_elder")),
 										msg.getEmbed())),
 						event -> "gdevproc_dm_elder",
@@ -318,12 +749,12 @@ public final class GDEventService {
 						event -> modsChannel,
 						event -> Optional.empty(),
 						event -> Mono.just(event.getUser().getAccountId()),
-						(event, old) -> gdUserService
-								.makeIconSet(bot.localization(), event.getUser())
-								.flatMap(icons -> gdUserService.userProfileView(bot.localization(), null, event.getUser(),
-										bot.localization().translate("GDStrings", "gdevproc_title_demoted"),
+						(tr, event) -> gdUserService
+								.makeIconSet(tr, event.getUser())
+								.flatMap(icons -> gdUserService.userProfileView(tr, null, event.getUser(),
+										tr.translate("GDStrings", "gdevproc_title_demoted"),
 										"https://i.imgur.com/X53HV7d.png", icons))
-								.map(msg -> new MessageSpecTemplate(randomString(bot.localization()
+								.map(msg -> new MessageSpecTemplate(randomString(tr
 												.translate("GDStrings", "gdevproc_public_unmod")),
 										msg.getEmbed())),
 						event -> "gdevproc_dm_unmod",
@@ -336,12 +767,12 @@ public final class GDEventService {
 						event -> modsChannel,
 						event -> Optional.empty(),
 						event -> Mono.just(event.getUser().getAccountId()),
-						(event, old) -> gdUserService
-								.makeIconSet(bot.localization(), event.getUser())
-								.flatMap(icons -> gdUserService.userProfileView(bot.localization(), null, event.getUser(),
-										bot.localization().translate("GDStrings", "gdevproc_title_demoted"),
+						(tr, event) -> gdUserService
+								.makeIconSet(tr, event.getUser())
+								.flatMap(icons -> gdUserService.userProfileView(tr, null, event.getUser(),
+										tr.translate("GDStrings", "gdevproc_title_demoted"),
 										"https://i.imgur.com/X53HV7d.png", icons))
-								.map(msg -> new MessageSpecTemplate(randomString(bot.localization()
+								.map(msg -> new MessageSpecTemplate(randomString(tr
 												.translate("GDStrings", "gdevproc_public_unelder")),
 										msg.getEmbed())),
 						event -> "gdevproc_dm_unelder",
@@ -350,6 +781,21 @@ public final class GDEventService {
 		);
 	}
 	
+	private static Optional<Map.Entry<Long, String>> parseWebhook(String value) {
+		var parts = value.split(":", 2);
+		if (parts.length == 2 && parts[1].indexOf('/') > 0 && !parts[1].endsWith("/")) {
+			try {
+				return Optional.of(Map.entry(Long.parseLong(parts[0]), parts[1]));
+			} catch (NumberFormatException e) {
+				// Logged below
+			}
+		}
+		// The token is not logged, only the part that should be the channel ID
+		LOGGER.warn("Ignoring malformed entry in gdplugin.event.webhooks, expected <channel_id>:<webhook_id>/<webhook_token> "
+				+ "(entry starting with '{}')", parts[0]);
+		return Optional.empty();
+	}
+	
 	private static String randomString(String str) {
 		var array = str.split("///");
 		return array[RANDOM.nextInt(array.length)];
@@ -1,34 +1,108 @@
 package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
 import org.reactivestreams.Subscription;
 
+import com.github.alex1304.jdashevents.event.AwardedLevelAddedEvent;
+import com.github.alex1304.jdashevents.event.AwardedLevelRemovedEvent;
+import com.github.alex1304.jdashevents.event.AwardedLevelUpdatedEvent;
 import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.alex1304.jdashevents.event.TimelyLevelChangedEvent;
 
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
 
+/**
+ * Processes GD events with bounded concurrency. Events sharing the same
+ * ordering key (same level, same user, same timely type) are processed one
+ * after the other in the order they were received, while events with
+ * different keys may be processed in parallel. Events waiting behind another
+ * event with the same key keep their slot, so that a burst of events on one key
+ * stays within the concurrency bound and any excess is held by the queue of the
+ * lane upstream.
+ */
 class GDEventSubscriber extends BaseSubscriber<GDEvent> {
-	
-	private volatile Subscription subscription;
+
 	private final GDEventService gdEventService;
 	private final Scheduler scheduler;
-	
-	GDEventSubscriber(GDEventService gdEventService, Scheduler scheduler) {
+	private final int concurrency;
+	private final EventLane lane;
+	private final Map<Object, Queue<GDEvent>> pendingByKey = new HashMap<>();
+
+	GDEventSubscriber(GDEventService gdEventService, Scheduler scheduler, int concurrency, EventLane lane) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("concurrency must be >= 1");
+		}
 		this.gdEventService = gdEventService;
 		this.scheduler = scheduler;
+		this.concurrency = concurrency;
+		this.lane = lane;
 	}
 
 	@Override
 	public void hookOnSubscribe(Subscription s) {
-		this.subscription = s;
-		s.request(1);
+		s.request(concurrency);
 	}
 
 	@Override
 	public void hookOnNext(GDEvent t) {
-		gdEventService.process(t)
+		var key = orderingKey(t);
+		synchronized (pendingByKey) {
+			var pending = pendingByKey.get(key);
+			if (pending != null) {
+				// An event with the same key is in progress, this one will be picked up
+				// right after. It keeps its slot until then, so nothing is requested.
+				pending.add(t);
+				return;
+			}
+			pendingByKey.put(key, new ArrayDeque<>());
+		}
+		processInOrder(key, t);
+	}
+
+	private void processInOrder(Object key, GDEvent event) {
+		gdEventService.process(event)
 				.subscribeOn(scheduler)
-				.doFinally(__ -> subscription.request(1))
+				// Lets the broadcast scheduler know which lane the requests come from
+				.subscriberContext(Context.of(EventLane.class, lane))
+				.doFinally(__ -> {
+					GDEvent next;
+					synchronized (pendingByKey) {
+						next = pendingByKey.get(key).poll();
+						if (next == null) {
+							pendingByKey.remove(key);
+						}
+					}
+					// The next event already holds its own slot
+					request(1);
+					if (next != null) {
+						processInOrder(key, next);
+					}
+				})
 				.subscribe();
 	}
+
+	static Object orderingKey(GDEvent event) {
+		if (event instanceof AwardedLevelAddedEvent) {
+			return "level-" + ((AwardedLevelAddedEvent) event).getAddedLevel().getId();
+		}
+		if (event instanceof AwardedLevelRemovedEvent) {
+			return "level-" + ((AwardedLevelRemovedEvent) event).getRemovedLevel().getId();
+		}
+		if (event instanceof AwardedLevelUpdatedEvent) {
+			return "level-" + ((AwardedLevelUpdatedEvent) event).getNewLevel().getId();
+		}
+		if (event instanceof TimelyLevelChangedEvent) {
+			return "timely-" + ((TimelyLevelChangedEvent) event).getTimelyLevel().getType();
+		}
+		if (event instanceof UserEvent) {
+			return "user-" + ((UserEvent) event).getUser().getAccountId();
+		}
+		return event.getClass();
+	}
 }
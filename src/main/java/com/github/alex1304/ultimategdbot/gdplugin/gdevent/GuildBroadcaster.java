@@ -0,0 +1,93 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.github.alex1304.ultimategdbot.api.util.MessageSpecTemplate;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.BroadcastScheduler.Priority;
+import com.github.alex1304.ultimategdbot.gdplugin.gdevent.GuildSubscriptionIndex.Subscription;
+import com.github.alex1304.ultimategdbot.gdplugin.util.GDEvents;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Delivers an event message to the channels of all subscribed guilds. Guilds
+ * are processed in batches with a bounded number of requests in flight, and
+ * each request goes through the {@link BroadcastScheduler} so that the
+ * per-channel and global rate limits are respected. A failure in one guild
+ * does not affect the others.
+ */
+class GuildBroadcaster {
+
+	private static final Logger LOGGER = Loggers.getLogger(GuildBroadcaster.class);
+
+	private final BroadcastSink sink;
+	private final BroadcastScheduler broadcastScheduler;
+	private final int batchSize;
+	private final int concurrency;
+	private final Set<BroadcastProgress> inProgress = ConcurrentHashMap.newKeySet();
+
+	GuildBroadcaster(BroadcastSink sink, BroadcastScheduler broadcastScheduler, int batchSize, int concurrency) {
+		this.sink = sink;
+		this.broadcastScheduler = broadcastScheduler;
+		this.batchSize = batchSize;
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Sends the message to the given subscriptions. Subscriptions that have a
+	 * role configured get that role mentioned before the message content.
+	 *
+	 * @param logText     the text identifying the event in logs
+	 * @param template    the message to send
+	 * @param subscribers the guilds to send the message to
+	 * @param onDone      called with the progress once all guilds are processed
+	 * @return a Flux emitting the messages that were successfully sent
+	 */
+	Flux<SentMessage> broadcast(String logText, MessageSpecTemplate template, Collection<Subscription> subscribers,
+			Consumer<BroadcastProgress> onDone) {
+		if (subscribers.isEmpty()) {
+			return Flux.empty();
+		}
+		return Flux.defer(() -> {
+			var progress = new BroadcastProgress(logText, subscribers.size());
+			inProgress.add(progress);
+			return Flux.fromIterable(subscribers)
+					.buffer(batchSize)
+					.concatMap(batch -> Flux.fromIterable(batch)
+							.flatMap(sub -> send(template, sub)
+									.doOnNext(__ -> progress.incrementDelivered())
+									.onErrorResume(e -> Mono.fromRunnable(() -> {
+										progress.incrementFailed();
+										LOGGER.debug("Unable to deliver GD event to guild " + sub.guildId(), e);
+									})), concurrency)
+							.doOnComplete(() -> LOGGER.debug("Guild broadcast progress for {}: {}/{}", logText,
+									progress.getProcessed(), progress.getTotal())))
+					.doFinally(signal -> {
+						inProgress.remove(progress);
+						onDone.accept(progress);
+					});
+		});
+	}
+
+	List<BroadcastProgress> getInProgress() {
+		return List.copyOf(inProgress);
+	}
+
+	private Mono<SentMessage> send(MessageSpecTemplate template, Subscription sub) {
+		return broadcastScheduler.schedule(Priority.PUBLIC_POST, sub.channelId(),
+				sink.createMessage(sub.channelId(), GDEvents.specToRequest(spec -> {
+					template.toMessageCreateSpec().accept(spec);
+					sub.roleId().ifPresent(roleId -> spec.setContent("<@&" + roleId + "> "
+							+ requireNonNullElse(template.getContent(), "")));
+				})));
+	}
+}
@@ -0,0 +1,95 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDEventConfigDao;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDEventConfigData;
+
+import discord4j.common.util.Snowflake;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * In-memory index of the guilds subscribed to each type of GD event, so that
+ * broadcasting an event does not need to query the database. It is loaded
+ * once at startup and kept up to date when a guild saves its configuration.
+ */
+class GuildSubscriptionIndex {
+	
+	private static final Logger LOGGER = Loggers.getLogger(GuildSubscriptionIndex.class);
+	
+	private static final Map<String, Function<GDEventConfigData, Optional<Snowflake>>> CHANNEL_GETTERS = Map.of(
+			"awarded_levels", GDEventConfigData::channelAwardedLevelsId,
+			"timely_levels", GDEventConfigData::channelTimelyLevelsId,
+			"gd_moderators", GDEventConfigData::channelGdModeratorsId);
+	private static final Map<String, Function<GDEventConfigData, Optional<Snowflake>>> ROLE_GETTERS = Map.of(
+			"awarded_levels", GDEventConfigData::roleAwardedLevelsId,
+			"timely_levels", GDEventConfigData::roleTimelyLevelsId,
+			"gd_moderators", GDEventConfigData::roleGdModeratorsId);
+	
+	private final BotService bot;
+	private final Map<String, Map<Long, Subscription>> subscriptionsByField = new ConcurrentHashMap<>();
+	
+	GuildSubscriptionIndex(BotService bot) {
+		this.bot = bot;
+		CHANNEL_GETTERS.keySet().forEach(field -> subscriptionsByField.put(field, new ConcurrentHashMap<>()));
+	}
+	
+	Mono<Void> load() {
+		return bot.database()
+				.withExtension(GDEventConfigDao.class, GDEventConfigDao::getAllSubscribed)
+				.doOnNext(all -> {
+					all.forEach(this::update);
+					LOGGER.info("Loaded GD event subscriptions of {} guilds", all.size());
+				})
+				.then();
+	}
+	
+	void update(GDEventConfigData data) {
+		var guildId = data.guildId().asLong();
+		CHANNEL_GETTERS.forEach((field, channelGetter) -> {
+			var subscriptions = subscriptionsByField.get(field);
+			channelGetter.apply(data).ifPresentOrElse(
+					channelId -> subscriptions.put(guildId, new Subscription(guildId, channelId.asLong(),
+							ROLE_GETTERS.get(field).apply(data).map(Snowflake::asLong).orElse(0L))),
+					() -> subscriptions.remove(guildId));
+		});
+	}
+	
+	Collection<Subscription> get(String databaseField) {
+		var subscriptions = subscriptionsByField.get(databaseField);
+		return subscriptions == null ? List.of() : List.copyOf(subscriptions.values());
+	}
+	
+	static class Subscription {
+		
+		private final long guildId;
+		private final long channelId;
+		private final long roleId;
+		
+		Subscription(long guildId, long channelId, long roleId) {
+			this.guildId = guildId;
+			this.channelId = channelId;
+			this.roleId = roleId;
+		}
+		
+		long guildId() {
+			return guildId;
+		}
+		
+		long channelId() {
+			return channelId;
+		}
+		
+		Optional<Long> roleId() {
+			return roleId == 0 ? Optional.empty() : Optional.of(roleId);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.alex1304.jdash.entity.GDLevel;
+import com.github.alex1304.jdashevents.event.AwardedLevelUpdatedEvent;
+import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import discord4j.discordjson.json.MessageEditRequest;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+/**
+ * Collapses consecutive {@link AwardedLevelUpdatedEvent}s of the same level
+ * into a single one, so that announcements are edited once when a level is
+ * updated several times in a short period. The merged event goes from the old
+ * state of the first update to the new state of the last one. It also
+ * remembers the last edit made for each level, so that edits that would not
+ * change anything can be skipped.
+ */
+class LevelUpdateDebouncer {
+
+	private final Duration window;
+	private final Duration maxDelay;
+	private final Map<Long, PendingUpdate> pending = new HashMap<>();
+	private final Cache<Long, MessageEditRequest> lastEdits = Caffeine.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(Duration.ofDays(1))
+			.build();
+
+	LevelUpdateDebouncer(Duration window, Duration maxDelay) {
+		this.window = window;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * Applies the debouncing to the given events. Events other than level
+	 * updates pass through immediately. A level update is emitted once no other
+	 * update of the same level was received during the window, or once the
+	 * maximum delay since the first update has elapsed.
+	 *
+	 * @param events the events to debounce
+	 * @return a Flux emitting the debounced events
+	 */
+	Flux<GDEvent> debounce(Flux<GDEvent> events) {
+		return Flux.create(sink -> sink.onDispose(events.subscribe(event -> {
+			if (!(event instanceof AwardedLevelUpdatedEvent)) {
+				sink.next(event);
+				return;
+			}
+			var update = (AwardedLevelUpdatedEvent) event;
+			var levelId = update.getNewLevel().getId();
+			synchronized (pending) {
+				var existing = pending.get(levelId);
+				if (existing == null) {
+					existing = new PendingUpdate(update.getOldLevel(), System.nanoTime() + maxDelay.toNanos());
+					pending.put(levelId, existing);
+				} else {
+					existing.timer.dispose();
+				}
+				existing.newLevel = update.getNewLevel();
+				var delay = Duration.ofNanos(Math.min(window.toNanos(), Math.max(0, existing.deadline - System.nanoTime())));
+				var scheduled = existing;
+				existing.timer = Mono.delay(delay).subscribe(__ -> emit(levelId, scheduled, sink));
+			}
+		}, sink::error, () -> {
+			synchronized (pending) {
+				for (var entry : Map.copyOf(pending).entrySet()) {
+					entry.getValue().timer.dispose();
+					emit(entry.getKey(), entry.getValue(), sink);
+				}
+			}
+			sink.complete();
+		})));
+	}
+
+	/**
+	 * Checks whether the given edit would change the messages of the level.
+	 *
+	 * @param levelId the level ID
+	 * @param request the edit request
+	 * @return true if the edit is different from the last one recorded for this
+	 *         level, false if it would not change anything and can be skipped
+	 */
+	boolean isEditNeeded(long levelId, MessageEditRequest request) {
+		return !request.equals(lastEdits.getIfPresent(levelId));
+	}
+
+	/**
+	 * Records an edit that was successfully applied to all the messages of the
+	 * given level. Edits that failed must not be recorded, otherwise retrying
+	 * them would be skipped.
+	 *
+	 * @param levelId the level ID
+	 * @param request the edit request
+	 */
+	void recordEdit(long levelId, MessageEditRequest request) {
+		lastEdits.put(levelId, request);
+	}
+
+	private void emit(long levelId, PendingUpdate update, FluxSink<GDEvent> sink) {
+		synchronized (pending) {
+			if (!pending.remove(levelId, update)) {
+				return;
+			}
+		}
+		sink.next(new AwardedLevelUpdatedEvent(update.oldLevel, update.newLevel));
+	}
+
+	private static class PendingUpdate {
+
+		private final GDLevel oldLevel;
+		private final long deadline;
+		private GDLevel newLevel;
+		private Disposable timer;
+
+		private PendingUpdate(GDLevel oldLevel, long deadline) {
+			this.oldLevel = oldLevel;
+			this.deadline = deadline;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.alex1304.ultimategdbot.api.Translator;
+import com.github.alex1304.ultimategdbot.api.util.MessageSpecTemplate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Renders the message template of an event at most once per locale, and
+ * shares the result between the channel post, the guild fan-out and all DMs
+ * of that event. Rendering errors are not memoized, so that a later attempt
+ * can succeed.
+ */
+class MessageTemplateRenderer {
+
+	private static final Duration TTL = Duration.ofMinutes(30);
+
+	// Weak keys compare by identity, which is what we want for events
+	private final Cache<GDEvent, Map<Locale, Mono<MessageSpecTemplate>>> rendered = Caffeine.newBuilder()
+			.weakKeys()
+			.expireAfterAccess(TTL)
+			.build();
+
+	Mono<MessageSpecTemplate> render(GDEvent event, GDEventProperties<?> eventProps, Translator tr) {
+		return rendered.get(event, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(tr.getLocale(), locale -> Mono.defer(() -> eventProps.createMessageTemplate(tr, event))
+						.cache(template -> TTL, error -> Duration.ZERO, () -> Duration.ZERO));
+	}
+}
@@ -0,0 +1,185 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.alex1304.jdash.entity.GDLevel;
+import com.github.alex1304.ultimategdbot.api.service.BotService;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDRateSubscriptionDao;
+import com.github.alex1304.ultimategdbot.gdplugin.database.GDRateSubscriptionData;
+import com.github.alex1304.ultimategdbot.gdplugin.database.ImmutableGDRateSubscriptionData;
+
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Keeps the rate subscriptions of users, which let them receive a DM when a
+ * level matching their criteria gets rated. Subscriptions are indexed in memory
+ * by their most selective criterion (creator, then demon tier, then
+ * difficulty, then rating), so that matching a level only looks at the
+ * subscriptions sharing at least one of its properties instead of all of them.
+ */
+public final class RateSubscriptionIndex {
+
+	private static final Logger LOGGER = Loggers.getLogger(RateSubscriptionIndex.class);
+
+	public static final Set<String> DIFFICULTIES = Set.of("auto", "easy", "normal", "hard", "harder", "insane", "demon");
+	public static final Set<String> DEMON_DIFFICULTIES = Set.of("easy", "medium", "hard", "insane", "extreme");
+	public static final Set<String> RATINGS = Set.of("featured", "epic");
+
+	private final BotService bot;
+	private final int maxPerUser;
+	private final Map<String, Map<Long, GDRateSubscriptionData>> index = new ConcurrentHashMap<>();
+
+	RateSubscriptionIndex(BotService bot, int maxPerUser) {
+		this.bot = bot;
+		this.maxPerUser = maxPerUser;
+	}
+
+	Mono<Void> load() {
+		return bot.database()
+				.withExtension(GDRateSubscriptionDao.class, GDRateSubscriptionDao::getAll)
+				.doOnNext(all -> {
+					all.forEach(this::addToIndex);
+					LOGGER.info("Loaded {} rate subscriptions", all.size());
+				})
+				.then();
+	}
+
+	/**
+	 * Creates a new subscription. At least one criterion must be specified.
+	 *
+	 * @param userId          the ID of the Discord user subscribing
+	 * @param creatorId       the player ID of the creator, or null for any
+	 * @param creatorName     the name of the creator, for display purposes
+	 * @param difficulty      one of {@link #DIFFICULTIES}, or null for any
+	 * @param demonDifficulty one of {@link #DEMON_DIFFICULTIES}, or null for any
+	 * @param rating          one of {@link #RATINGS}, or null for any
+	 * @return a Mono emitting the created subscription, or an
+	 *         {@link IllegalStateException} if the user has reached the maximum
+	 *         number of subscriptions
+	 */
+	public Mono<GDRateSubscriptionData> subscribe(long userId, Long creatorId, String creatorName, String difficulty,
+			String demonDifficulty, String rating) {
+		if (creatorId == null && difficulty == null && demonDifficulty == null && rating == null) {
+			return Mono.error(new IllegalArgumentException("At least one criterion must be specified"));
+		}
+		var createDate = Instant.now();
+		return list(userId)
+				.filter(existing -> existing.size() < maxPerUser)
+				.switchIfEmpty(Mono.error(() -> new IllegalStateException("Maximum number of subscriptions reached")))
+				.then(bot.database().withExtension(GDRateSubscriptionDao.class, dao -> dao.create(userId, creatorId,
+						creatorName, difficulty, demonDifficulty, rating, createDate)))
+				.map(id -> ImmutableGDRateSubscriptionData.builder()
+						.subscriptionId(id)
+						.userId(userId)
+						.creatorId(Optional.ofNullable(creatorId))
+						.creatorName(Optional.ofNullable(creatorName))
+						.difficulty(Optional.ofNullable(difficulty))
+						.demonDifficulty(Optional.ofNullable(demonDifficulty))
+						.rating(Optional.ofNullable(rating))
+						.createDate(createDate)
+						.build())
+				.doOnNext(this::addToIndex);
+	}
+
+	/**
+	 * Deletes a subscription of the given user.
+	 *
+	 * @param userId         the ID of the Discord user
+	 * @param subscriptionId the ID of the subscription
+	 * @return a Mono emitting true if the subscription was deleted, false if it
+	 *         does not exist or does not belong to the user
+	 */
+	public Mono<Boolean> unsubscribe(long userId, long subscriptionId) {
+		return bot.database()
+				.withExtension(GDRateSubscriptionDao.class, dao -> dao.delete(subscriptionId, userId))
+				.map(count -> count > 0)
+				.doOnNext(deleted -> {
+					if (deleted) {
+						index.values().forEach(subscriptions -> subscriptions.remove(subscriptionId));
+					}
+				});
+	}
+
+	public Mono<List<GDRateSubscriptionData>> list(long userId) {
+		return bot.database().withExtension(GDRateSubscriptionDao.class, dao -> dao.getAllForUser(userId));
+	}
+
+	/**
+	 * Finds the users having a subscription matching the given level.
+	 *
+	 * @param level the level that was rated
+	 * @return the IDs of the Discord users to notify
+	 */
+	Set<Long> match(GDLevel level) {
+		var userIds = new HashSet<Long>();
+		for (var key : keysOf(level)) {
+			var candidates = index.get(key);
+			if (candidates == null) {
+				continue;
+			}
+			for (var subscription : candidates.values()) {
+				if (matches(subscription, level)) {
+					userIds.add(subscription.userId());
+				}
+			}
+		}
+		return userIds;
+	}
+
+	private void addToIndex(GDRateSubscriptionData subscription) {
+		index.computeIfAbsent(anchorKey(subscription), k -> new ConcurrentHashMap<>())
+				.put(subscription.subscriptionId(), subscription);
+	}
+
+	private static String anchorKey(GDRateSubscriptionData subscription) {
+		return subscription.creatorId().map(id -> "creator:" + id)
+				.or(() -> subscription.demonDifficulty().map(d -> "demon:" + d))
+				.or(() -> subscription.difficulty().map(d -> "difficulty:" + d))
+				.or(() -> subscription.rating().map(r -> "rating:" + r))
+				.orElseThrow();
+	}
+
+	private static List<String> keysOf(GDLevel level) {
+		var rating = ratingOf(level);
+		return rating == null
+				? List.of("creator:" + level.getCreatorID(), "demon:" + demonDifficultyOf(level),
+						"difficulty:" + difficultyOf(level))
+				: List.of("creator:" + level.getCreatorID(), "demon:" + demonDifficultyOf(level),
+						"difficulty:" + difficultyOf(level), "rating:featured", "rating:epic");
+	}
+
+	private static boolean matches(GDRateSubscriptionData subscription, GDLevel level) {
+		var rating = ratingOf(level);
+		return subscription.creatorId().map(id -> id == level.getCreatorID()).orElse(true)
+				&& subscription.difficulty().map(difficultyOf(level)::equals).orElse(true)
+				&& subscription.demonDifficulty().map(d -> d.equals(demonDifficultyOf(level))).orElse(true)
+				// Subscribing to featured levels includes epic ones
+				&& subscription.rating().map(r -> rating != null && (r.equals("featured") || r.equals(rating))).orElse(true);
+	}
+
+	private static String difficultyOf(GDLevel level) {
+		if (level.isDemon()) {
+			return "demon";
+		}
+		return level.isAuto() ? "auto" : level.getDifficulty().toString().toLowerCase();
+	}
+
+	private static String demonDifficultyOf(GDLevel level) {
+		return level.isDemon() ? level.getDemonDifficulty().toString().toLowerCase() : null;
+	}
+
+	private static String ratingOf(GDLevel level) {
+		if (level.isEpic()) {
+			return "epic";
+		}
+		return level.getFeaturedScore() > 0 ? "featured" : null;
+	}
+}
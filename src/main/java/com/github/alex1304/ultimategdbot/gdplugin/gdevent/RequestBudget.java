@@ -0,0 +1,65 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Share of the GD request budget that background scanning is allowed to
+ * spend. Permits are reserved ahead of time: a caller that takes more permits
+ * than currently available is not delayed itself, but the next callers wait
+ * until the debt is paid back. This keeps bursts such as a multi-page
+ * catch-up fast while preserving the average rate.
+ */
+class RequestBudget {
+
+	private final long nanosPerPermit;
+	private long nextFreeNanos = System.nanoTime();
+
+	/**
+	 * @param permitsPerMinute the number of requests allowed per minute, or 0 if
+	 *                         unlimited
+	 */
+	RequestBudget(double permitsPerMinute) {
+		this.nanosPerPermit = permitsPerMinute > 0 ? (long) (Duration.ofMinutes(1).toNanos() / permitsPerMinute) : 0;
+	}
+
+	static RequestBudget unlimited() {
+		return new RequestBudget(0);
+	}
+
+	/**
+	 * Reserves the given number of permits, waiting if previous reservations
+	 * exceeded the budget.
+	 *
+	 * @param permits the number of requests about to be made
+	 * @return a Mono completing when the requests can be made
+	 */
+	Mono<Void> acquire(int permits) {
+		return Mono.defer(() -> {
+			var wait = reserve(permits);
+			return wait.isZero() ? Mono.empty() : Mono.delay(wait).then();
+		});
+	}
+
+	/**
+	 * Gets the minimum interval that allows to make the given number of requests
+	 * periodically without exceeding the budget.
+	 *
+	 * @param permits the number of requests made per interval
+	 * @return the minimum interval
+	 */
+	Duration intervalFor(int permits) {
+		return Duration.ofNanos(nanosPerPermit * permits);
+	}
+
+	private synchronized Duration reserve(int permits) {
+		if (nanosPerPermit == 0) {
+			return Duration.ZERO;
+		}
+		var now = System.nanoTime();
+		var wait = Math.max(0, nextFreeNanos - now);
+		nextFreeNanos = Math.max(now, nextFreeNanos) + nanosPerPermit * permits;
+		return Duration.ofNanos(wait);
+	}
+}
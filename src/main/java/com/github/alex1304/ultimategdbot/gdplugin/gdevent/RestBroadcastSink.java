@@ -0,0 +1,51 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import com.github.alex1304.ultimategdbot.api.service.BotService;
+
+import discord4j.common.util.Snowflake;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.User;
+import discord4j.discordjson.json.MessageEditRequest;
+import discord4j.rest.entity.RestChannel;
+import discord4j.rest.util.MultipartRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends broadcast requests to Discord.
+ */
+class RestBroadcastSink implements BroadcastSink {
+
+	private final BotService bot;
+
+	RestBroadcastSink(BotService bot) {
+		this.bot = bot;
+	}
+
+	@Override
+	public Mono<SentMessage> createMessage(long channelId, MultipartRequest request) {
+		return RestChannel.create(bot.gateway().rest(), Snowflake.of(channelId))
+				.createMessage(request)
+				.map(data -> new SentMessage(channelId, new Message(bot.gateway(), data).getId().asLong()));
+	}
+
+	@Override
+	public Mono<Void> editMessage(long channelId, long messageId, MessageEditRequest request) {
+		return bot.gateway().rest()
+				.getMessageById(Snowflake.of(channelId), Snowflake.of(messageId))
+				.edit(request)
+				.then();
+	}
+
+	@Override
+	public Mono<Void> crosspost(long channelId, long messageId) {
+		return bot.gateway().rest()
+				.getChannelService()
+				.publishMessage(channelId, messageId)
+				.then();
+	}
+
+	@Override
+	public Mono<Long> openPrivateChannel(User user) {
+		return user.getPrivateChannel().map(channel -> channel.getId().asLong());
+	}
+}
@@ -0,0 +1,77 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Outcome of the last runs of an event scanner.
+ */
+public final class ScannerHealth {
+
+	public enum Outcome {
+		NEVER_RAN, SUCCESS, COOLDOWN, ERROR, TIMEOUT
+	}
+
+	private final String scannerName;
+	private volatile Outcome lastOutcome = Outcome.NEVER_RAN;
+	private volatile Instant lastRun;
+	private volatile Instant lastSuccess;
+	private volatile Duration lastDuration = Duration.ZERO;
+	private volatile String lastError;
+	private volatile int consecutiveFailures;
+	private volatile long timeoutCount;
+
+	ScannerHealth(String scannerName) {
+		this.scannerName = scannerName;
+	}
+
+	synchronized void record(Outcome outcome, Duration duration, Throwable error) {
+		lastOutcome = outcome;
+		lastRun = Instant.now();
+		lastDuration = duration;
+		if (outcome == Outcome.SUCCESS) {
+			lastSuccess = lastRun;
+			lastError = null;
+			consecutiveFailures = 0;
+			return;
+		}
+		lastError = error == null ? null : error.toString();
+		consecutiveFailures++;
+		if (outcome == Outcome.TIMEOUT) {
+			timeoutCount++;
+		}
+	}
+
+	public String getScannerName() {
+		return scannerName;
+	}
+
+	public Outcome getLastOutcome() {
+		return lastOutcome;
+	}
+
+	public Optional<Instant> getLastRun() {
+		return Optional.ofNullable(lastRun);
+	}
+
+	public Optional<Instant> getLastSuccess() {
+		return Optional.ofNullable(lastSuccess);
+	}
+
+	public Duration getLastDuration() {
+		return lastDuration;
+	}
+
+	public Optional<String> getLastError() {
+		return Optional.ofNullable(lastError);
+	}
+
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount;
+	}
+}
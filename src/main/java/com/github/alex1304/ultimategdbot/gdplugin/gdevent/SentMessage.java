@@ -0,0 +1,23 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+/**
+ * Identifies a message sent by a {@link BroadcastSink}.
+ */
+class SentMessage {
+
+	private final long channelId;
+	private final long messageId;
+
+	SentMessage(long channelId, long messageId) {
+		this.channelId = channelId;
+		this.messageId = messageId;
+	}
+
+	long channelId() {
+		return channelId;
+	}
+
+	long messageId() {
+		return messageId;
+	}
+}
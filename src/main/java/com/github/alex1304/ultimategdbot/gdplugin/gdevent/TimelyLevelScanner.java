@@ -0,0 +1,37 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import com.github.alex1304.jdash.client.AuthenticatedGDClient;
+import com.github.alex1304.jdash.exception.NoTimelyAvailableException;
+import com.github.alex1304.jdashevents.event.GDEvent;
+import com.github.alex1304.jdashevents.event.TimelyLevelChangedEvent;
+
+import reactor.core.publisher.Flux;
+
+class TimelyLevelScanner implements EventScanner {
+	
+	private final boolean isWeekly;
+	private volatile long previousId = -1;
+	
+	TimelyLevelScanner(boolean isWeekly) {
+		this.isWeekly = isWeekly;
+	}
+
+	@Override
+	public String name() {
+		return isWeekly ? "weekly_demon" : "daily_level";
+	}
+
+	@Override
+	public Flux<GDEvent> scan(AuthenticatedGDClient gdClient) {
+		return (isWeekly ? gdClient.getWeeklyDemon() : gdClient.getDailyLevel())
+				.flatMapMany(timely -> {
+					var previous = previousId;
+					previousId = timely.getId();
+					if (previous == -1 || previous == timely.getId()) {
+						return Flux.<GDEvent>empty();
+					}
+					return Flux.<GDEvent>just(new TimelyLevelChangedEvent(timely));
+				})
+				.onErrorResume(NoTimelyAvailableException.class, e -> Flux.empty());
+	}
+}
@@ -0,0 +1,51 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+
+/**
+ * Token bucket refilled continuously, used to pace requests to Discord. This
+ * class is thread-safe.
+ */
+class TokenBucket {
+
+	private final int capacity;
+	private final long nanosPerToken;
+	private double tokens;
+	private long lastRefill = System.nanoTime();
+
+	/**
+	 * @param capacity the maximum number of tokens, i.e. the allowed burst
+	 * @param period   the time needed to refill the bucket entirely
+	 */
+	TokenBucket(int capacity, Duration period) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be >= 1");
+		}
+		this.capacity = capacity;
+		this.nanosPerToken = Math.max(1, period.toNanos() / capacity);
+		this.tokens = capacity;
+	}
+
+	synchronized boolean tryConsume() {
+		refill();
+		if (tokens < 1) {
+			return false;
+		}
+		tokens--;
+		return true;
+	}
+
+	/**
+	 * @return the time until a token is available, zero if one is available now
+	 */
+	synchronized Duration timeUntilAvailable() {
+		refill();
+		return tokens >= 1 ? Duration.ZERO : Duration.ofNanos((long) ((1 - tokens) * nanosPerToken));
+	}
+
+	private void refill() {
+		var now = System.nanoTime();
+		tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / nanosPerToken);
+		lastRefill = now;
+	}
+}
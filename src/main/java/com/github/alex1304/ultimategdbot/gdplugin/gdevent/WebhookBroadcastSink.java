@@ -0,0 +1,196 @@
+package com.github.alex1304.ultimategdbot.gdplugin.gdevent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import discord4j.core.object.entity.User;
+import discord4j.discordjson.json.MessageEditRequest;
+import discord4j.rest.util.MultipartRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Sends messages to the event channels through Discord webhooks instead of the
+ * bot account, so that broadcasts don't consume the rate limits shared with
+ * command replies. Each webhook has its own token bucket matching the limits
+ * Discord applies to webhooks. Channels without a webhook, messages with
+ * attachments, and requests that cannot be made through a webhook are
+ * delegated to the fallback sink. If a webhook turns out to be deleted, it is
+ * forgotten and its channel falls back to the bot account from then on.
+ */
+class WebhookBroadcastSink implements BroadcastSink {
+
+	private static final Logger LOGGER = Loggers.getLogger(WebhookBroadcastSink.class);
+	private static final int UNKNOWN_WEBHOOK_CODE = 10015;
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final BroadcastSink fallback;
+	private final HttpClient httpClient;
+	private final ObjectMapper mapper;
+	private final String baseUrl;
+	private final Map<Long, Webhook> webhooksByChannel;
+
+	/**
+	 * @param fallback the sink used when a message can't be sent via webhook
+	 * @param mapper   the mapper used to serialize requests
+	 * @param baseUrl  the base URL of the Discord API, can point to a local
+	 *                 stand-in for testing
+	 * @param timeout  the maximum time to wait for the response of a webhook
+	 *                 request
+	 * @param webhooks the webhook URLs path ("id/token") by channel ID
+	 */
+	WebhookBroadcastSink(BroadcastSink fallback, ObjectMapper mapper, String baseUrl, Duration timeout,
+			Map<Long, String> webhooks) {
+		this.fallback = fallback;
+		this.httpClient = HttpClient.create()
+				.responseTimeout(timeout)
+				.headers(headers -> headers.set("Content-Type", "application/json"));
+		this.mapper = mapper;
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+		this.webhooksByChannel = new ConcurrentHashMap<>();
+		webhooks.forEach((channelId, path) -> webhooksByChannel.put(channelId, new Webhook(path)));
+	}
+
+	@Override
+	public Mono<SentMessage> createMessage(long channelId, MultipartRequest request) {
+		var webhook = webhooksByChannel.get(channelId);
+		if (webhook == null || !request.getFiles().isEmpty()) {
+			return fallback.createMessage(channelId, request);
+		}
+		return Mono.fromCallable(() -> toWebhookBody(request.getCreateRequest()))
+				.flatMap(body -> execute(webhook, HttpMethod.POST, "?wait=true", body, 1))
+				.map(json -> new SentMessage(channelId, json.get("id").asLong()))
+				.onErrorResume(WebhookGoneException.class, e -> {
+					forget(channelId, webhook);
+					return fallback.createMessage(channelId, request);
+				});
+	}
+
+	@Override
+	public Mono<Void> editMessage(long channelId, long messageId, MessageEditRequest request) {
+		var webhook = webhooksByChannel.get(channelId);
+		if (webhook == null) {
+			return fallback.editMessage(channelId, messageId, request);
+		}
+		return Mono.fromCallable(() -> toWebhookBody(request))
+				.flatMap(body -> execute(webhook, HttpMethod.PATCH, "/messages/" + messageId, body, 1))
+				.then()
+				.onErrorResume(WebhookGoneException.class, e -> {
+					forget(channelId, webhook);
+					return fallback.editMessage(channelId, messageId, request);
+				})
+				// The message may have been sent by the bot before the webhook was set up
+				.onErrorResume(UnknownMessageException.class, e -> fallback.editMessage(channelId, messageId, request));
+	}
+
+	@Override
+	public Mono<Void> crosspost(long channelId, long messageId) {
+		return fallback.crosspost(channelId, messageId);
+	}
+
+	@Override
+	public Mono<Long> openPrivateChannel(User user) {
+		return fallback.openPrivateChannel(user);
+	}
+
+	private String toWebhookBody(Object request) throws Exception {
+		// Webhooks take an array of embeds, while bot messages take a single embed
+		var body = (ObjectNode) mapper.valueToTree(request);
+		var embed = body.remove("embed");
+		if (embed != null && !embed.isNull()) {
+			body.putArray("embeds").add(embed);
+		}
+		return mapper.writeValueAsString(body);
+	}
+
+	private Mono<JsonNode> execute(Webhook webhook, HttpMethod method, String path, String body, int attempt) {
+		return webhook.acquire()
+				.then(httpClient.request(method)
+						.uri(baseUrl + "/webhooks/" + webhook.path + path)
+						.send(ByteBufFlux.fromString(Mono.just(body)))
+						.responseSingle((response, content) -> content.asString()
+								.defaultIfEmpty("")
+								.flatMap(text -> handleResponse(response.status().code(), text))))
+				.onErrorResume(RateLimitedException.class, e -> attempt >= MAX_ATTEMPTS ? Mono.error(e)
+						: Mono.delay(e.retryAfter).then(execute(webhook, method, path, body, attempt + 1)));
+	}
+
+	private Mono<JsonNode> handleResponse(int status, String text) {
+		return Mono.fromCallable(() -> {
+			var json = text.isEmpty() ? mapper.createObjectNode() : mapper.readTree(text);
+			if (status >= 200 && status < 300) {
+				return json;
+			}
+			if (status == 429) {
+				throw new RateLimitedException(Duration.ofMillis((long) (json.path("retry_after").asDouble(1) * 1000)));
+			}
+			if (status == 404) {
+				if (json.path("code").asInt() == UNKNOWN_WEBHOOK_CODE) {
+					throw new WebhookGoneException();
+				}
+				throw new UnknownMessageException();
+			}
+			throw new IllegalStateException("Webhook request failed with status " + status + ": " + text);
+		});
+	}
+
+	private void forget(long channelId, Webhook webhook) {
+		if (webhooksByChannel.remove(channelId, webhook)) {
+			LOGGER.warn("Webhook of channel {} was deleted, falling back to sending messages as the bot", channelId);
+		}
+	}
+
+	private static class Webhook {
+
+		private final String path;
+		// Discord allows about 5 requests per 2 seconds per webhook
+		private final TokenBucket bucket = new TokenBucket(5, Duration.ofSeconds(2));
+
+		private Webhook(String path) {
+			this.path = path;
+		}
+
+		private Mono<Void> acquire() {
+			return Mono.defer(() -> bucket.tryConsume() ? Mono.empty()
+					: Mono.delay(bucket.timeUntilAvailable()).then(acquire()));
+		}
+	}
+
+	private static class RateLimitedException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+		private final Duration retryAfter;
+
+		private RateLimitedException(Duration retryAfter) {
+			super("Webhook rate limited, retry after " + retryAfter, null, false, false);
+			this.retryAfter = retryAfter;
+		}
+	}
+
+	private static class WebhookGoneException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private WebhookGoneException() {
+			super("Unknown webhook", null, false, false);
+		}
+	}
+
+	private static class UnknownMessageException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private UnknownMessageException() {
+			super("Unknown message", null, false, false);
+		}
+	}
+}
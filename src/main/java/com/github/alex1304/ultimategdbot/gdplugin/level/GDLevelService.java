@@ -9,9 +9,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.util.function.IntFunction;
 
-import com.github.alex1304.jdash.client.AuthenticatedGDClient;
 import com.github.alex1304.jdash.entity.GDLevel;
 import com.github.alex1304.jdash.entity.GDSong;
 import com.github.alex1304.jdash.exception.MissingAccessException;
@@ -27,6 +26,7 @@ import com.github.alex1304.ultimategdbot.api.service.BotService;
 import com.github.alex1304.ultimategdbot.api.util.DurationUtils;
 import com.github.alex1304.ultimategdbot.api.util.Markdown;
 import com.github.alex1304.ultimategdbot.api.util.MessageSpecTemplate;
+import com.github.alex1304.ultimategdbot.gdplugin.cache.GDClientCache;
 
 import discord4j.core.object.entity.Message;
 import discord4j.core.spec.EmbedCreateSpec;
@@ -42,9 +42,11 @@ public final class GDLevelService {
 	public static final Map<Integer, String> GAME_VERSIONS = gameVersions();
 	
 	private final BotService bot;
+	private final GDClientCache gdCache;
 	
-	public GDLevelService(BotService bot) {
+	public GDLevelService(BotService bot, GDClientCache gdCache) {
 		this.bot = bot;
+		this.gdCache = gdCache;
 	}
 
 	public Mono<Consumer<EmbedCreateSpec>> searchResultsEmbed(Context ctx, Iterable<GDLevel> results, String title, int page, int totalPages) {
@@ -97,8 +99,8 @@ public final class GDLevelService {
 						bot.emoji().get("like"), bot.emoji().get("length"), bot.emoji().get("lock"),
 						bot.emoji().get("copy"), bot.emoji().get("object_overflow"),
 						bot.emoji().get("user_coin"), bot.emoji().get("user_coin_unverified"))
-				.zipWith(Mono.zip(level.download(), formatSongPrimaryMetadata(ctx, level.getSong()),
-						formatSongSecondaryMetadata(ctx, level.getSong())))
+				.zipWith(Mono.zip(gdCache.downloadLevel(level), formatSongPrimaryMetadata(ctx, gdCache.getSong(level)),
+						formatSongSecondaryMetadata(ctx, gdCache.getSong(level))))
 				.map(tuple -> {
 					final var emojis = tuple.getT1();
 					final var data = tuple.getT2().getT1();
@@ -160,7 +162,7 @@ public final class GDLevelService {
 						bot.emoji().get("like"), bot.emoji().get("length"), bot.emoji().get("copy"),
 						bot.emoji().get("object_overflow"), bot.emoji().get("user_coin"),
 						bot.emoji().get("user_coin_unverified"))
-				.zipWith(formatSongPrimaryMetadata(tr, level.getSong()))
+				.zipWith(formatSongPrimaryMetadata(tr, gdCache.getSong(level)))
 				.map(tuple -> {
 					final var emojis = tuple.getT1();
 					final var songInfo = ":musical_note:   " + tuple.getT2();
@@ -182,14 +184,55 @@ public final class GDLevelService {
 				});
 	}
 	
-	public Mono<Void> searchAndSend(Context ctx, String header, Supplier<Mono<GDPaginator<GDLevel>>> searchFactory) {
+	/**
+	 * Builds an embed summarizing several levels, one field per level. Discord
+	 * allows at most 25 fields per embed, extra levels are ignored.
+	 * 
+	 * @param tr            the translator to use
+	 * @param levels        the levels to show
+	 * @param authorName    the name shown in the embed author
+	 * @param authorIconUrl the icon shown in the embed author
+	 * @return a Mono emitting the embed
+	 */
+	public Mono<Consumer<EmbedCreateSpec>> digestView(Translator tr, List<GDLevel> levels, String authorName, String authorIconUrl) {
+		return Mono.zip(o -> o, bot.emoji().get("star"), bot.emoji().get("downloads"), bot.emoji().get("dislike"),
+						bot.emoji().get("like"), bot.emoji().get("length"), bot.emoji().get("user_coin"),
+						bot.emoji().get("user_coin_unverified"))
+				.map(emojis -> embed -> {
+					embed.setAuthor(authorName, null, authorIconUrl);
+					embed.setThumbnail(getDifficultyImageForLevel(levels.get(0)));
+					for (var level : levels.subList(0, Math.min(25, levels.size()))) {
+						var coins = coinsToEmoji("" + emojis[level.hasCoinsVerified() ? 5 : 6], level.getCoinCount(), true);
+						embed.addField(String.format("%s x%d%s | __%s__ by %s",
+										emojis[0], level.getStars(), coins.equals("None") ? "" : " " + coins,
+										level.getName(), level.getCreatorName()),
+								String.format("%s %d \t %s %d \t %s %s \t %s %d",
+										emojis[1], level.getDownloads(),
+										level.getLikes() < 0 ? emojis[2] : emojis[3], level.getLikes(),
+										emojis[4], level.getLength(),
+										tr.translate("GDStrings", "label_level_id"), level.getId()), false);
+					}
+				});
+	}
+	
+	/**
+	 * Sends the search results in a paginated menu.
+	 *
+	 * @param ctx           the context
+	 * @param header        the title of the results
+	 * @param searchFactory gives the results of the given page, it should go
+	 *                      through the {@link GDClientCache} so that navigating
+	 *                      back and forth doesn't request the same page again
+	 * @return a Mono completing when the menu is open
+	 */
+	public Mono<Void> searchAndSend(Context ctx, String header, IntFunction<Mono<GDPaginator<GDLevel>>> searchFactory) {
 		var resultsOfCurrentPage = new AtomicReference<List<GDLevel>>();
-		return searchFactory.get()
+		return searchFactory.apply(0)
 				.doOnNext(paginator -> resultsOfCurrentPage.set(paginator.asList()))
 				.flatMap(results -> results.asList().size() == 1 ? sendSelectedSearchResult(ctx, results.asList().get(0), false)
 						: bot.interactiveMenu().createAsyncPaginated((tr, page) -> {
 							PageNumberOutOfRangeException.check(page, 0, results.getTotalNumberOfPages() - 1);
-							return results.goTo(page)
+							return searchFactory.apply(page)
 									.map(GDPaginator::asList)
 									.doOnNext(resultsOfCurrentPage::set)
 									.onErrorReturn(MissingAccessException.class, List.of())
@@ -217,12 +260,12 @@ public final class GDLevelService {
 						.open(ctx));
 	}
 	
-	public Mono<Message> sendTimelyInfo(Context ctx, AuthenticatedGDClient gdClient, boolean isWeekly) {
-		var timelyMono = isWeekly ? gdClient.getWeeklyDemon() : gdClient.getDailyLevel();
+	public Mono<Message> sendTimelyInfo(Context ctx, GDClientCache gdCache, boolean isWeekly) {
+		var timelyMono = isWeekly ? gdCache.getWeeklyDemon() : gdCache.getDailyLevel();
 		var headerTitle = isWeekly ? ctx.translate("GDStrings", "weekly") : ctx.translate("GDStrings", "daily");
 		var headerLink = isWeekly ? "https://i.imgur.com/kcsP5SN.png" : "https://i.imgur.com/enpYuB8.png";
 		return timelyMono
-				.flatMap(timely -> timely.getLevel()
+				.flatMap(timely -> gdCache.getTimelyLevel(timely)
 						.flatMap(level -> detailedView(ctx, level, headerTitle + " #" + timely.getId(), headerLink)
 								.flatMap(embed -> {
 									var cooldown = Duration.ofSeconds(timely.getCooldown());
@@ -305,7 +348,7 @@ public final class GDLevelService {
 								difficulty.append("_epic");
 							else if (level.getFeaturedScore() > 0)
 								difficulty.append("_featured");
-							return formatSongPrimaryMetadata(ctx, level.getSong())
+							return formatSongPrimaryMetadata(ctx, gdCache.getSong(level))
 									.map(songFormat -> Tuples.of(level, Tuples.of(difficulty.toString(), songFormat)));
 									
 						})
@@ -20,7 +20,6 @@ import javax.imageio.ImageIO;
 
 import org.jdbi.v3.core.mapper.immutables.JdbiImmutables;
 
-import com.github.alex1304.jdash.client.AuthenticatedGDClient;
 import com.github.alex1304.jdash.entity.GDUser;
 import com.github.alex1304.jdash.entity.IconType;
 import com.github.alex1304.jdash.entity.Role;
@@ -32,6 +31,7 @@ import com.github.alex1304.ultimategdbot.api.Translator;
 import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
 import com.github.alex1304.ultimategdbot.api.service.BotService;
 import com.github.alex1304.ultimategdbot.api.util.MessageSpecTemplate;
+import com.github.alex1304.ultimategdbot.gdplugin.cache.GDClientCache;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDLeaderboardBanData;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDLeaderboardDao;
 import com.github.alex1304.ultimategdbot.gdplugin.database.GDLeaderboardData;
@@ -54,7 +54,7 @@ import reactor.core.scheduler.Schedulers;
 public final class GDUserService {
 	
 	private final BotService bot;
-	private final AuthenticatedGDClient gdClient;
+	private final GDClientCache gdCache;
 	private final SpriteFactory spriteFactory;
 	
 	private final Cache<GDUserIconSet, String> iconsCache;
@@ -63,7 +63,7 @@ public final class GDUserService {
 	public GDUserService(
 			BotConfig botConfig,
 			BotService bot,
-			AuthenticatedGDClient gdClient,
+			GDClientCache gdCache,
 			SpriteFactory spriteFactory) {
 		this.bot = bot;
 		bot.database().configureJdbi(jdbi -> {
@@ -73,7 +73,7 @@ public final class GDUserService {
 					GDLinkedUserData.class,
 					GDModData.class);
 		});
-		this.gdClient = gdClient;
+		this.gdCache = gdCache;
 		this.spriteFactory = spriteFactory;
 		var gdConfig = botConfig.resource("gd");
 		var iconsCacheMaxSize = gdConfig.readOptional("gdplugin.icons_cache_max_size")
@@ -208,13 +208,13 @@ public final class GDUserService {
 							.getByDiscordUserId(user.getId().asLong())))
 					.flatMap(Mono::justOrEmpty)
 					.filter(GDLinkedUserData::isLinkActivated)
-					.flatMap(linkedUser -> gdClient.getUserByAccountId(linkedUser.gdUserId()).flatMap(this::saveUserStats))
+					.flatMap(linkedUser -> gdCache.getUserByAccountId(linkedUser.gdUserId()).flatMap(this::saveUserStats))
 					.switchIfEmpty(Mono.error(new CommandFailedException(tr.translate("GDStrings", "error_no_gd_account"))));
 		}
 		if (!str.matches("[a-zA-Z0-9 _-]+")) {
 			return Mono.error(new CommandFailedException(tr.translate("GDStrings", "error_invalid_characters")));
 		}
-		return gdClient.searchUser(str);
+		return gdCache.searchUser(str);
 	}
 	
 	public Mono<GDUser> saveUserStats(GDUser gdUser) {
@@ -0,0 +1,132 @@
+package com.github.alex1304.ultimategdbot.gdplugin.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs using open addressing with linear probing. It
+ * avoids the boxing and per-entry overhead of a {@code HashSet<Long>}, which
+ * matters when holding hundreds of thousands of IDs. This class is not
+ * thread-safe.
+ */
+public final class LongHashSet {
+
+	private static final long EMPTY = 0;
+	private static final double LOAD_FACTOR = 0.6;
+
+	private long[] table;
+	private int size;
+	private boolean containsEmpty;
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	public LongHashSet(int expectedSize) {
+		this.table = new long[capacityFor(expectedSize)];
+	}
+
+	public boolean add(long value) {
+		if (value == EMPTY) {
+			if (containsEmpty) {
+				return false;
+			}
+			containsEmpty = true;
+			size++;
+			return true;
+		}
+		var i = indexOf(value, table);
+		if (table[i] == value) {
+			return false;
+		}
+		table[i] = value;
+		if (++size > table.length * LOAD_FACTOR) {
+			resize(table.length * 2);
+		}
+		return true;
+	}
+
+	public boolean contains(long value) {
+		if (value == EMPTY) {
+			return containsEmpty;
+		}
+		return table[indexOf(value, table)] == value;
+	}
+
+	public boolean remove(long value) {
+		if (value == EMPTY) {
+			if (!containsEmpty) {
+				return false;
+			}
+			containsEmpty = false;
+			size--;
+			return true;
+		}
+		var i = indexOf(value, table);
+		if (table[i] != value) {
+			return false;
+		}
+		table[i] = EMPTY;
+		size--;
+		// Shift back the entries of the same cluster so that lookups don't stop early
+		var mask = table.length - 1;
+		var j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			if (table[j] == EMPTY) {
+				return true;
+			}
+			var home = hash(table[j]) & mask;
+			if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+				table[i] = table[j];
+				table[j] = EMPTY;
+				i = j;
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(table, EMPTY);
+		containsEmpty = false;
+		size = 0;
+	}
+
+	private void resize(int newCapacity) {
+		var newTable = new long[newCapacity];
+		for (var value : table) {
+			if (value != EMPTY) {
+				newTable[indexOf(value, newTable)] = value;
+			}
+		}
+		table = newTable;
+	}
+
+	private static int indexOf(long value, long[] table) {
+		var mask = table.length - 1;
+		var i = hash(value) & mask;
+		while (table[i] != EMPTY && table[i] != value) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private static int hash(long value) {
+		var h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private static int capacityFor(int expectedSize) {
+		var capacity = 16;
+		while (capacity * LOAD_FACTOR < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -4,6 +4,7 @@ import com.github.alex1304.ultimategdbot.gdplugin.GDPlugin;
 import com.github.alex1304.ultimategdbot.gdplugin.GDServices;
 
 open module ultimategdbot.gd {
+	requires com.fasterxml.jackson.databind;
 	requires com.github.benmanes.caffeine;
 	requires io.netty.codec.http;
 	requires java.compiler;
@@ -12,6 +13,7 @@ open module ultimategdbot.gd {
 	requires jdash.events;
 	requires jdk.unsupported;
 	requires reactor.extra;
+	requires reactor.netty;
 	requires ultimategdbot.api;
 
 	requires static com.google.errorprone.annotations;